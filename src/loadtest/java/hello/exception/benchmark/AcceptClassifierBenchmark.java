@@ -0,0 +1,52 @@
+package hello.exception.benchmark;
+
+import hello.exception.negotiation.AcceptClassifier;
+import hello.exception.negotiation.ErrorFormat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+AcceptClassifier 와 스프링 MediaType 파싱 비교
+- ./gradlew benchmark -Djmh.args="AcceptClassifierBenchmark -f 1"
+- classify: 자주 쓰이는 헤더 (캐시 적중)
+- classifyUnique: 매번 다른 헤더 (캐시를 놓치고 슬롯을 교체하는 경로, 임의 헤더 공격)
+- parseMediaTypes: 예전 방식. 오류가 날 때마다 MediaType.parseMediaTypes 로 파싱하고 정렬한 뒤 첫 번째 형식을 고른다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AcceptClassifierBenchmark {
+
+    @Param({
+            "application/json",
+            "application/json, text/plain, */*",
+            "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8"
+    })
+    public String accept;
+
+    private int sequence;
+
+    @Benchmark
+    public ErrorFormat classify() {
+        return AcceptClassifier.classify(accept);
+    }
+
+    @Benchmark
+    public ErrorFormat classifyUnique() {
+        return AcceptClassifier.classify(accept + ";n=" + (sequence++));
+    }
+
+    @Benchmark
+    public MediaType parseMediaTypes() {
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        return mediaTypes.get(0);
+    }
+}
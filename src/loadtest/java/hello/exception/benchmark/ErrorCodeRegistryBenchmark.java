@@ -0,0 +1,96 @@
+package hello.exception.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.exception.exception.UserException;
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeCustomizer;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.ErrorResult;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*
+ErrorCodeRegistry 의 직렬화, 집계 비용 (문자열 코드, Jackson 을 쓰던 예전 방식과 비교)
+- ./gradlew benchmark -Djmh.args="ErrorCodeRegistryBenchmark -f 1 -prof gc"
+- 직렬화 (오류 응답 body 한 개)
+    - jacksonMap: 예전 ErrorPageController, UserHandlerExceptionResolver 처럼 HashMap 을 만들어 ObjectMapper 로 쓴다.
+    - jacksonErrorResult: 문자열 코드로 ErrorResult 를 만들어 ObjectMapper 로 쓴다. (예전 ExControllerAdvice)
+    - registryMessage: 미리 만든 {"code":..,"message": 조각 뒤에 예외 메시지만 붙인다.
+    - registryDefault: 기본 메시지면 미리 만든 body 를 그대로 돌려준다. (할당 없음)
+- 집계 (오류 한 건)
+    - countByStringKey: 코드 문자열을 키로 ConcurrentHashMap<String, LongAdder> 에 센다.
+    - countById: ErrorCode id 로 배열의 LongAdder 에 센다.
+    - codeOfAndCountById: 예외 타입 -> ErrorCode (ClassValue) 까지 포함한다. (핸들러가 실제로 하는 일)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorCodeRegistryBenchmark {
+
+    static final String MESSAGE = "사용자 오류: member id 'user-ex' 는 사용할 수 없습니다.";
+    static final String DEFAULT_MESSAGE = "사용자 오류";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, LongAdder> countsByString = new ConcurrentHashMap<>();
+    private final UserException exception = new UserException(MESSAGE);
+    private ErrorCodeRegistry registry;
+
+    @Setup
+    public void setUp() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage(ErrorCode.USER_EX.getMessageKey(), Locale.getDefault(), DEFAULT_MESSAGE);
+        registry = new ErrorCodeRegistry(messageSource, new DefaultListableBeanFactory().getBeanProvider(ErrorCodeCustomizer.class));
+    }
+
+    @Benchmark
+    public byte[] jacksonMap() throws JsonProcessingException {
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", 400);
+        result.put("code", "USER-EX");
+        result.put("message", MESSAGE);
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] jacksonErrorResult() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ErrorResult("USER-EX", MESSAGE));
+    }
+
+    @Benchmark
+    public byte[] registryMessage() {
+        return registry.json(ErrorCode.USER_EX, MESSAGE);
+    }
+
+    @Benchmark
+    public byte[] registryDefault() {
+        return registry.json(ErrorCode.USER_EX, DEFAULT_MESSAGE);
+    }
+
+    @Benchmark
+    public void countByStringKey() {
+        countsByString.computeIfAbsent("USER-EX", code -> new LongAdder()).increment();
+    }
+
+    @Benchmark
+    public void countById() {
+        registry.count(ErrorCode.USER_EX);
+    }
+
+    @Benchmark
+    public void codeOfAndCountById() {
+        registry.count(registry.codeOf(exception));
+    }
+}
@@ -0,0 +1,165 @@
+package hello.exception.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.OutputStreamAppender;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.stacktrace.CompactThrowableConverter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.RequestDispatcher;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+오류 폭주 중 로그 비용 (ErrorLogGovernor 의 CPU, I/O 절감 확인)
+- ./gradlew benchmark -Djmh.args="ErrorLogGovernorBenchmark -f 1 -prof gc"
+- 오류 하나마다 ErrorPageController 의 상세 로그(printErrorInfo 7 줄 + 1 줄)와
+  ExControllerAdvice 의 스택 트레이스 로그를 남기는 경로를 흉내낸다.
+  로그는 콘솔 패턴(%cEx 포함)으로 임시 파일에 쓴다. (immediateFlush, 실제 쓰기 I/O)
+- mode
+    - ungoverned: 예전처럼 오류마다 상세 로그
+    - governed: ErrorLogGovernor(quiet-above 50/s, window 1s) 를 거친다.
+      폭주가 시작되면 첫 window 뒤에 요약 모드로 바뀌고, 이후에는 window 마다 요약과 표본 로그만 남는다.
+      (요약, 표본은 ErrorLogGovernor 자신의 로거로 나가므로 logBytes 에 들어가지 않는다. window 마다 두 줄이다.)
+- 결과
+    - ops/ms: 오류 처리량 (CPU)
+    - logBytes: 초당 로그 파일에 쓴 바이트 (I/O). logBytes / 처리량 이 오류 하나당 바이트다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorLogGovernorBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p --- [%t] %-40.40logger{39} : %m%n%cEx";
+
+    @Param({"ungoverned", "governed"})
+    public String mode;
+
+    private final LoggerContext context = new LoggerContext();
+    private Path file;
+    private CountingOutputStream out;
+    private ErrorLogGovernor governor;
+    private Logger errorPageLog;
+    private Logger adviceLog;
+    private MockHttpServletRequest request;
+    private ResponseStatusException exception;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Io {
+
+        public long logBytes;
+        private long start;
+
+        @Setup(Level.Iteration)
+        public void reset(ErrorLogGovernorBenchmark benchmark) {
+            start = benchmark.out.count;
+            logBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("error-storm", ".log");
+        out = new CountingOutputStream(new FileOutputStream(file.toFile()));
+
+        Map<String, String> rules = new HashMap<>();
+        rules.put("cEx", CompactThrowableConverter.class.getName());   // logback-spring.xml 의 conversionRule
+        context.putObject(CoreConstants.PATTERN_RULE_REGISTRY, rules);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(out);
+        appender.start();
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(ch.qos.logback.classic.Level.INFO);
+        root.addAppender(appender);
+        errorPageLog = context.getLogger("hello.exception.servlet.ErrorPageController");
+        adviceLog = context.getLogger("hello.exception.exhandler.advice.ExControllerAdvice");
+
+        exception = new ResponseStatusException(HttpStatus.BAD_REQUEST, "error.bad", new IllegalArgumentException("잘못된 입력 값"));
+        request = new MockHttpServletRequest("GET", "/error-page/500");
+        request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, exception);
+        request.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, "/api/response-status-ex2");
+        request.setAttribute(RequestDispatcher.ERROR_STATUS_CODE, 400);
+
+        if ("governed".equals(mode)) {
+            governor = new ErrorLogGovernor(50, 10, 1000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (governor != null) {
+            governor.destroy();
+        }
+        context.stop();
+        out.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void errorStorm(Io io) {
+        if (governor == null || governor.verbose(LogCategory.ERROR_PAGE, request, exception)) {
+            errorPageLog.info("errorPage 500");
+            errorPageLog.info("ERROR_EXCEPTION: {}", request.getAttribute(RequestDispatcher.ERROR_EXCEPTION));
+            errorPageLog.info("ERROR_EXCEPTION_TYPE: {}", exception.getClass());
+            errorPageLog.info("ERROR_MESSAGE: {}", exception.getMessage());
+            errorPageLog.info("ERROR_REQUEST_URI: {}", request.getAttribute(RequestDispatcher.ERROR_REQUEST_URI));
+            errorPageLog.info("ERROR_SERVLET_NAME: {}", "dispatcherServlet");
+            errorPageLog.info("ERROR_STATUS_CODE: {}", request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE));
+            errorPageLog.info("dispatchType={}", request.getDispatcherType());
+        }
+        if (governor == null || governor.verbose(LogCategory.CONTROLLER_ADVICE, request, exception)) {
+            adviceLog.error("[exceptionHandler] ex", exception);
+        }
+        io.logBytes = out.count - io.start;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        volatile long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+    }
+}
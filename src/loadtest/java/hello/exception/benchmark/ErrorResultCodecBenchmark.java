@@ -0,0 +1,71 @@
+package hello.exception.benchmark;
+
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeCustomizer;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.ErrorResult;
+import hello.exception.exhandler.ErrorResultCodec;
+import hello.exception.negotiation.ErrorFormat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+오류 응답 body 형식 비교 (JSON, CBOR, Smile)
+- ./gradlew benchmark -Djmh.args="ErrorResultCodecBenchmark -f 1"
+- encode: ErrorResultCodec 로 인코딩 (UserHandlerExceptionResolver 의 CBOR, Smile 경로)
+- prebuiltJson: ErrorCodeRegistry 가 미리 만든 JSON 조각에 메시지만 붙이는 경로 (UserHandlerExceptionResolver 의 JSON 경로)
+- decode: 받은 쪽에서 ErrorResult 로 디코딩 (ErrorResultClient)
+- 형식별 body 크기는 setup 에서 한 번 출력한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResultCodecBenchmark {
+
+    static final String MESSAGE = "사용자 오류: member id 'user-ex' 는 사용할 수 없습니다.";
+
+    @State(Scope.Thread)
+    public static class Codec {
+
+        @Param({"JSON", "CBOR", "SMILE"})
+        public ErrorFormat format;
+
+        final ErrorResult errorResult = new ErrorResult(ErrorCode.USER_EX.getCode(), MESSAGE);
+        byte[] encoded;
+
+        @Setup
+        public void setUp() throws IOException {
+            encoded = ErrorResultCodec.encode(errorResult, format);
+            System.out.printf("%n%s body size: %d bytes%n", format, encoded.length);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+
+        final ErrorCodeRegistry registry = new ErrorCodeRegistry(new StaticMessageSource(),
+                new DefaultListableBeanFactory().getBeanProvider(ErrorCodeCustomizer.class));
+    }
+
+    @Benchmark
+    public byte[] encode(Codec codec) throws IOException {
+        return ErrorResultCodec.encode(codec.errorResult, codec.format);
+    }
+
+    @Benchmark
+    public ErrorResult decode(Codec codec) throws IOException {
+        return ErrorResultCodec.decode(codec.encoded, codec.format);
+    }
+
+    @Benchmark
+    public byte[] prebuiltJson(Registry registry) {
+        return registry.registry.json(ErrorCode.USER_EX, MESSAGE);
+    }
+}
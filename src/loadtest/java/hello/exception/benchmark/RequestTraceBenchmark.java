@@ -0,0 +1,48 @@
+package hello.exception.benchmark;
+
+import hello.exception.trace.RequestTrace;
+import hello.exception.trace.Stage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/*
+요청 스레드가 구간 기록에 쓰는 비용 (목표: 구간 하나에 1us 미만)
+- ./gradlew benchmark -Djmh.args="RequestTraceBenchmark -f 1 -prof gc"
+- errorRequest: 오류 요청 하나의 구간 5개 (REQUEST, CONTROLLER, RESOLVER, SEND_ERROR, ERROR_DISPATCH)
+  trace 생성까지 포함하고, 결과는 구간 하나당 시간이다. (@OperationsPerInvocation)
+- newTrace: trace 생성만 (-prof gc 의 gc.alloc.rate.norm 이 요청당 할당량이다.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTraceBenchmark {
+
+    private static final int SPANS = 5;
+
+    @Benchmark
+    @OperationsPerInvocation(SPANS)
+    public RequestTrace errorRequest() {
+        RequestTrace trace = new RequestTrace("/api/members/ex");
+        trace.begin(Stage.REQUEST);
+        trace.begin(Stage.CONTROLLER);
+        trace.end(Stage.CONTROLLER);
+        trace.begin(Stage.RESOLVER);
+        trace.begin(Stage.SEND_ERROR);
+        trace.end(Stage.SEND_ERROR);
+        trace.end(Stage.RESOLVER);
+        trace.end(Stage.REQUEST);
+        trace.begin(Stage.ERROR_DISPATCH);
+        trace.end(Stage.ERROR_DISPATCH);
+        return trace;
+    }
+
+    @Benchmark
+    public RequestTrace newTrace() {
+        return new RequestTrace("/api/members/ex");
+    }
+}
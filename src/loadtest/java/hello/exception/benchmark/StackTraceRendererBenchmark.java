@@ -0,0 +1,104 @@
+package hello.exception.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import hello.exception.stacktrace.CompactThrowableConverter;
+import hello.exception.stacktrace.StackTraceRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+200 프레임 예외의 스택 트레이스 출력 비용
+- ./gradlew benchmark -Djmh.args="StackTraceRendererBenchmark -f 1 -prof gc"
+- 예외: 애플리케이션 프레임과 프레임워크 프레임이 섞인 200 프레임짜리 IllegalArgumentException 을
+  ResponseStatusException 이 감싼 것 (cause 와 아래쪽 프레임을 공유한다.)
+- compactRender: StackTraceRenderer.render (로그, 오류 attribute 의 trace)
+- printStackTrace: Throwable.printStackTrace 를 StringWriter 로 (예전 ${trace})
+- logbackDefault: logback 기본 예외 출력 (%ex) 으로 로그 한 줄 만들기
+- logbackCompact: CompactThrowableConverter (%cEx) 로 로그 한 줄 만들기
+  두 logback 변형은 이벤트를 매번 새로 만든다. (ThrowableProxy 생성 비용 포함, 실제 로그 호출과 같다.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackTraceRendererBenchmark {
+
+    private static final int FRAMES = 200;
+
+    private final LoggerContext context = new LoggerContext();
+    private ResponseStatusException exception;
+    private PatternLayout defaultLayout;
+    private PatternLayout compactLayout;
+
+    @Setup
+    public void setUp() {
+        IllegalArgumentException cause = new IllegalArgumentException("잘못된 입력 값");
+        cause.setStackTrace(frames(FRAMES));
+        exception = new ResponseStatusException(HttpStatus.BAD_REQUEST, "error.bad", cause);
+        StackTraceElement[] enclosing = frames(FRAMES);
+        StackTraceElement[] shifted = new StackTraceElement[FRAMES - 3];
+        System.arraycopy(enclosing, 3, shifted, 0, shifted.length);
+        exception.setStackTrace(shifted);
+
+        defaultLayout = layout("%m%n%ex");
+        compactLayout = layout("%m%n%cEx");
+    }
+
+    @Benchmark
+    public String compactRender() {
+        return StackTraceRenderer.render(exception);
+    }
+
+    @Benchmark
+    public String printStackTrace() {
+        StringWriter writer = new StringWriter();
+        exception.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String logbackDefault() {
+        return defaultLayout.doLayout(event());
+    }
+
+    @Benchmark
+    public String logbackCompact() {
+        return compactLayout.doLayout(event());
+    }
+
+    private LoggingEvent event() {
+        return new LoggingEvent(StackTraceRendererBenchmark.class.getName(), context.getLogger(StackTraceRendererBenchmark.class),
+                Level.ERROR, "[exceptionHandler] ex", exception, null);
+    }
+
+    private PatternLayout layout(String pattern) {
+        PatternLayout layout = new PatternLayout();
+        layout.getInstanceConverterMap().put("cEx", CompactThrowableConverter.class.getName());
+        layout.setContext(context);
+        layout.setPattern(pattern);
+        layout.start();
+        return layout;
+    }
+
+    // 10 프레임마다 애플리케이션 프레임 4 개, 프레임워크 프레임 6 개 (컨트롤러 -> 디스패처 -> 필터 체인이 반복되는 모양)
+    private static StackTraceElement[] frames(int count) {
+        StackTraceElement[] frames = new StackTraceElement[count];
+        for (int i = 0; i < count; i++) {
+            frames[i] = i % 10 < 4
+                    ? new StackTraceElement("hello.exception.api.MemberService" + (i / 10), "call" + i, "MemberService.java", i)
+                    : new StackTraceElement("org.springframework.web.servlet.FrameworkServlet" + (i / 10), "service" + i, null, i);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,100 @@
+package hello.exception.benchmark;
+
+import hello.exception.ExceptionApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+입력 값 오류 응답 비교: ValidationControllerAdvice (한 번의 디스패치) vs 예전 경로 (sendError 후 /error 재요청)
+- ./gradlew benchmark -Djmh.args="ValidationErrorBenchmark -f 1"
+- 내장 서버를 한 번 띄우고 HTTP/1.1 연결 하나로 요청한다. (톰캣, 필터, 인터셉터를 모두 지나는 실제 응답 시간)
+- advice: /api/default-handler-ex 의 @RequestParam Integer data
+- errorDispatch: 같은 시그니처를 advice 밖(hello.exception.benchmark)에 둔 컨트롤러
+  DefaultHandlerExceptionResolver -> sendError(400) -> /error(BasicErrorController) 로 응답한다.
+- query: 타입 불일치(data=qqq), 필수 파라미터 누락(빈 값)
+- 오류 응답 예산(ErrorBudgetFilter)은 풀어 둔다. 그렇지 않으면 대부분 예산 초과 최소 응답을 재게 된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationErrorBenchmark {
+
+    private static final String[] SERVER_ARGS = {
+            "--server.port=0",
+            "--logging.level.root=WARN",
+            "--error.warmup.enabled=false",
+            "--error.budget.client.permits-per-second=1000000",
+            "--error.budget.client.burst=1000000",
+            "--error.budget.route.permits-per-second=1000000",
+            "--error.budget.route.burst=1000000"
+    };
+
+    @Param({"data=qqq", ""})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest advice;
+    private HttpRequest errorDispatch;
+
+    @RestController
+    public static class OutsideAdviceController {
+
+        @GetMapping("/benchmark/default-handler-ex")
+        public String defaultException(@RequestParam Integer data) {
+            return "ok";
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(new Class<?>[]{ExceptionApplication.class, OutsideAdviceController.class}, SERVER_ARGS);
+        String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        advice = request(base + "/api/default-handler-ex?" + query);
+        errorDispatch = request(base + "/benchmark/default-handler-ex?" + query);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] advice() throws IOException, InterruptedException {
+        return send(advice);
+    }
+
+    @Benchmark
+    public byte[] errorDispatch() throws IOException, InterruptedException {
+        return send(errorDispatch);
+    }
+
+    private byte[] send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 400) {
+            throw new IllegalStateException(request.uri() + " -> " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static HttpRequest request(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Accept", "application/json").GET().build();
+    }
+}
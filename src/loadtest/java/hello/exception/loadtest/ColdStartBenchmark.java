@@ -0,0 +1,178 @@
+package hello.exception.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+기동 시간과 첫 오류 응답 지연 측정 (ErrorPathWarmUp 의 효과 확인)
+- 실행: ./gradlew coldStart -Dcoldstart.runs=5
+
+측정 방법
+- 설정 조합(variant)마다 새 JVM 으로 애플리케이션을 coldstart.runs 번 띄운다. (클래스 로딩, JIT 까지 매번 처음부터)
+- 기동 시간: 프로세스 시작부터 /api/members/spring 이 처음 2xx 를 줄 때까지 (ms)
+  JVM 기동 시간을 포함한다. 준비되기 전(연결 거부, 503)에는 10ms 마다 다시 시도한다.
+- 첫 오류 지연: 준비된 직후 FIRST_ERRORS 의 경로를 하나씩 순서대로 딱 한 번 요청한 응답 시간 (us)
+  연결은 준비 확인 요청 때 맺은 것을 재사용한다. (서버가 Connection: close 로 끊은 뒤에는 새로 맺는다.)
+- 결과는 run 별 값의 중앙값으로 표에 출력하고, 모든 run 의 값은 build/loadtest/coldstart.csv 에 남긴다.
+
+설정 (시스템 프로퍼티)
+- coldstart.runs: variant 별 실행 횟수 (기본 3)
+- coldstart.report-dir: 결과 저장 위치 (기본 build/loadtest)
+ */
+public class ColdStartBenchmark {
+
+    // 이름 --> 서버에 넘길 인자
+    private static final Map<String, List<String>> VARIANTS = new LinkedHashMap<>();
+
+    static {
+        VARIANTS.put("none", List.of("--error.warmup.enabled=false"));
+        VARIANTS.put("warmup", List.of("--error.warmup.enabled=true"));
+    }
+
+    static final List<Endpoint> FIRST_ERRORS = Endpoint.parseMix(String.join(",",
+            "/api/members/bad:1",
+            "/api/members/user-ex:1",
+            "/api/members/ex:1",
+            "/api/response-status-ex1:1",
+            "/api/default-handler-ex?data=qqq:1",
+            "/api/validation-ex?memberId=&age=abc:1",
+            "/error-404@html:1",
+            "/error-ex@html:1"));
+
+    private static final String READY_PATH = "/api/members/spring";
+    private static final long STARTUP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(120);
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.parseInt(System.getProperty("coldstart.runs", "3"));
+        Path reportDir = Paths.get(System.getProperty("coldstart.report-dir", "build/loadtest"));
+
+        List<String> csv = new ArrayList<>();
+        csv.add("variant,run,metric,value");
+        Map<String, Map<String, List<Long>>> results = new LinkedHashMap<>();
+
+        for (Map.Entry<String, List<String>> variant : VARIANTS.entrySet()) {
+            Map<String, List<Long>> metrics = results.computeIfAbsent(variant.getKey(), key -> new LinkedHashMap<>());
+            for (int run = 1; run <= runs; run++) {
+                Map<String, Long> measured = measure(variant.getValue());
+                for (Map.Entry<String, Long> entry : measured.entrySet()) {
+                    metrics.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue());
+                    csv.add(variant.getKey() + "," + run + "," + entry.getKey() + "," + entry.getValue());
+                }
+                System.out.printf("%s run %d: %s%n", variant.getKey(), run, measured);
+            }
+        }
+
+        print(results, runs);
+        Files.createDirectories(reportDir);
+        Files.write(reportDir.resolve("coldstart.csv"), csv, StandardCharsets.UTF_8);
+        System.out.println("report written to " + reportDir.resolve("coldstart.csv").toAbsolutePath());
+    }
+
+    private static Map<String, Long> measure(List<String> serverArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("hello.exception.ExceptionApplication");
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=WARN");
+        command.addAll(serverArgs);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        String base = "http://localhost:" + port;
+
+        Map<String, Long> measured = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "coldstart-server.log"))
+                .start();
+        try {
+            awaitReady(client, base + READY_PATH, process);
+            measured.put("startup_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            for (Endpoint endpoint : FIRST_ERRORS) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(base + endpoint.path))
+                        .header("Accept", endpoint.accept)
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build();
+                long sent = System.nanoTime();
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                measured.put(endpoint.name() + "_us", TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+        return measured;
+    }
+
+    private static void awaitReady(HttpClient client, String url, Process process) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build();
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("server exited with " + process.exitValue() + ", see coldstart-server.log");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 아직 포트가 열리지 않았다.
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("server not ready within " + STARTUP_TIMEOUT_MILLIS + "ms");
+    }
+
+    private static void print(Map<String, Map<String, List<Long>>> results, int runs) {
+        List<String> variants = new ArrayList<>(results.keySet());
+        Set<String> metrics = new LinkedHashSet<>();
+        results.values().forEach(metric -> metrics.addAll(metric.keySet()));
+
+        System.out.printf("%n%-50s", "metric (median of " + runs + " runs)");
+        variants.forEach(variant -> System.out.printf(" %18s", variant));
+        System.out.println();
+        for (String metric : metrics) {
+            System.out.printf("%-50s", metric);
+            for (String variant : variants) {
+                List<Long> values = results.get(variant).getOrDefault(metric, List.of());
+                System.out.printf(" %18s", values.isEmpty() ? "-" : String.valueOf(median(values)));
+            }
+            System.out.println();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package hello.exception.loadtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+
+/*
+부하 발생기와 서버 사이에 끼우는 TCP 중계기. 새로 맺은 연결을 센다.
+- 응답 헤더("Connection: close")를 믿지 않고 실제로 accept 한 소켓 수를 센다.
+  서버가 헤더 없이 끊거나, 클라이언트가 연결 풀이 모자라서 새로 여는 경우도 그대로 잡힌다.
+- accept 할 때마다 onAccept 에 System.nanoTime() 을 넘긴다.
+- 연결마다 방향별로 스레드 하나씩 바이트를 그대로 복사한다. (HTTP 를 해석하지 않으므로 h2c 도 그대로 지나간다.)
+  한쪽이 끝나면(EOF) 반대쪽 출력을 닫고, 오류가 나면 양쪽 소켓을 모두 닫는다.
+- loopback 에서만 열고, 부하 테스트 규모(수백 연결)에서만 쓴다. 중계 때문에 응답 시간이 조금 늘어난다.
+ */
+class ConnectionCountingProxy implements Closeable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final InetSocketAddress target;
+    private final LongConsumer onAccept;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "connection-counting-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ConnectionCountingProxy(String host, int port, LongConsumer onAccept) throws IOException {
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        this.target = new InetSocketAddress(host, port);
+        this.onAccept = onAccept;
+        executor.execute(this::acceptLoop);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch (IOException e) {
+                return;   // close()
+            }
+            onAccept.accept(System.nanoTime());
+            executor.execute(() -> relay(client));
+        }
+    }
+
+    private void relay(Socket client) {
+        try (client; Socket server = new Socket()) {
+            server.connect(target);
+            client.setTcpNoDelay(true);
+            server.setTcpNoDelay(true);
+            Future<?> upstream = executor.submit(() -> pump(client, server));
+            pump(server, client);
+            upstream.get();
+        } catch (IOException | ExecutionException e) {
+            // 서버에 연결하지 못했거나 중계 중에 끊겼다. 클라이언트는 연결 오류로 본다.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void pump(Socket from, Socket to) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            to.shutdownOutput();
+        } catch (IOException e) {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package hello.exception.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/*
+부하 테스트 대상 요청 하나와 그 비율
+- 형식: path[@json|html]:weight  (예: /api/members/ex@json:10, /error-404@html:5)
+- @ 를 생략하면 JSON 으로 요청한다.
+ */
+class Endpoint {
+
+    final String path;
+    final String accept;
+    final int weight;
+
+    Endpoint(String path, String accept, int weight) {
+        this.path = path;
+        this.accept = accept;
+        this.weight = weight;
+    }
+
+    String name() {
+        return path + (accept.startsWith("text/html") ? "@html" : "@json");
+    }
+
+    static List<Endpoint> parseMix(String mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int weightStart = trimmed.lastIndexOf(':');
+            String target = weightStart < 0 ? trimmed : trimmed.substring(0, weightStart);
+            int weight = weightStart < 0 ? 1 : Integer.parseInt(trimmed.substring(weightStart + 1));
+
+            String accept = "application/json";
+            int acceptStart = target.lastIndexOf('@');
+            if (acceptStart >= 0) {
+                accept = target.substring(acceptStart + 1).equals("html") ? "text/html" : "application/json";
+                target = target.substring(0, acceptStart);
+            }
+            endpoints.add(new Endpoint(target, accept, weight));
+        }
+        return endpoints;
+    }
+}
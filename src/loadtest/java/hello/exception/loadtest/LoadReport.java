@@ -0,0 +1,148 @@
+package hello.exception.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/*
+부하 테스트 결과
+- "엔드포인트 | 결과 분류(2xx, 4xx, 5xx, budget, 예외 클래스 이름)" 마다 HdrHistogram 하나 (단위: 마이크로초)
+- 사람이 보는 표(report-*.txt)와 다음 실행과 비교하기 위한 요약(report-*.csv, latest.csv)을 남긴다.
+- 이전 실행의 latest.csv(또는 loadtest.baseline 으로 지정한 파일)가 있으면 p50, p99 변화량을 함께 출력한다.
+- 새로 맺은 TCP 연결 수(ConnectionCountingProxy)를 측정 구간 안에서 초 단위로 센다. (표에만 남기고 csv 비교에는 넣지 않는다.)
+ */
+class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final String CSV_HEADER = "key,count,p50,p90,p99,p999,max";
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final AtomicLongArray connectionsOpened;
+    private volatile boolean countingConnections;
+    private volatile long measureFromNanos;
+    private volatile long measureToNanos;
+
+    LoadReport(long durationSeconds) {
+        this.connectionsOpened = new AtomicLongArray((int) Math.max(1, durationSeconds));
+    }
+
+    void measureBetween(long fromNanos, long toNanos) {
+        this.measureFromNanos = fromNanos;
+        this.measureToNanos = toNanos;
+    }
+
+    void record(String endpoint, String outcome, long latencyNanos) {
+        long micros = Math.min(Math.max(latencyNanos / 1000, 1), HIGHEST_TRACKABLE_MICROS);
+        histograms.computeIfAbsent(endpoint + " | " + outcome, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(micros);
+    }
+
+    // 측정 구간 밖(워밍업, 남은 응답 기다리는 중)에 맺은 연결은 세지 않는다.
+    void recordConnectionOpened(long nanoTime) {
+        countingConnections = true;
+        long from = measureFromNanos;
+        if (from == 0 || nanoTime - from < 0 || nanoTime - measureToNanos >= 0) {
+            return;
+        }
+        int second = (int) Math.min(TimeUnit.NANOSECONDS.toSeconds(nanoTime - from), connectionsOpened.length() - 1);
+        connectionsOpened.incrementAndGet(second);
+    }
+
+    void print(PrintStream out, Map<String, long[]> baseline, double seconds) {
+        out.printf("%-55s %8s %8s %8s %8s %8s %8s %8s%n", "endpoint | outcome", "count", "rps", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<String, Histogram> entry : sorted()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-55s %8d %8.1f %8d %8d %8d %8d %8d%s%n", entry.getKey(),
+                    histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue(), delta(baseline.get(entry.getKey()), histogram));
+        }
+        out.println("(latency in microseconds, measured from the intended send time)");
+
+        if (!countingConnections) {
+            return;
+        }
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < connectionsOpened.length(); i++) {
+            total += connectionsOpened.get(i);
+            max = Math.max(max, connectionsOpened.get(i));
+        }
+        long requests = 0;
+        for (Histogram histogram : histograms.values()) {
+            requests += histogram.getTotalCount();
+        }
+        out.printf("new connections (counted at the proxy): total %d, avg %.1f/s, max %d/s, %s requests per connection%n",
+                total, total / seconds, max, total > 0 ? String.format("%.1f", (double) requests / total) : "all");
+    }
+
+    void write(Path directory, String runId, Map<String, long[]> baseline, double seconds) throws IOException {
+        Files.createDirectories(directory);
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("report-" + runId + ".txt")),
+                false, StandardCharsets.UTF_8)) {
+            print(out, baseline, seconds);
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (Map.Entry<String, Histogram> entry : sorted()) {
+            Histogram histogram = entry.getValue();
+            lines.add(String.join(",", entry.getKey(),
+                    String.valueOf(histogram.getTotalCount()),
+                    String.valueOf(histogram.getValueAtPercentile(50)),
+                    String.valueOf(histogram.getValueAtPercentile(90)),
+                    String.valueOf(histogram.getValueAtPercentile(99)),
+                    String.valueOf(histogram.getValueAtPercentile(99.9)),
+                    String.valueOf(histogram.getMaxValue())));
+        }
+        Files.write(directory.resolve("report-" + runId + ".csv"), lines, StandardCharsets.UTF_8);
+        Files.write(directory.resolve("latest.csv"), lines, StandardCharsets.UTF_8);
+    }
+
+    // key -> {count, p50, p90, p99, p999, max}
+    static Map<String, long[]> readBaseline(Path csv) throws IOException {
+        Map<String, long[]> baseline = new HashMap<>();
+        if (csv == null || !Files.exists(csv)) {
+            return baseline;
+        }
+        for (String line : Files.readAllLines(csv, StandardCharsets.UTF_8)) {
+            if (line.equals(CSV_HEADER) || line.isBlank()) {
+                continue;
+            }
+            String[] columns = line.split(",");
+            long[] values = new long[columns.length - 1];
+            for (int i = 1; i < columns.length; i++) {
+                values[i - 1] = Long.parseLong(columns[i]);
+            }
+            baseline.put(columns[0], values);
+        }
+        return baseline;
+    }
+
+    private String delta(long[] baseline, Histogram histogram) {
+        if (baseline == null) {
+            return "";
+        }
+        return String.format("   (p50 %+d, p99 %+d vs baseline)",
+                histogram.getValueAtPercentile(50) - baseline[1],
+                histogram.getValueAtPercentile(99) - baseline[3]);
+    }
+
+    private List<Map.Entry<String, Histogram>> sorted() {
+        List<Map.Entry<String, Histogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        return entries;
+    }
+}
@@ -0,0 +1,282 @@
+package hello.exception.loadtest;
+
+import hello.exception.ExceptionApplication;
+import hello.exception.filter.ErrorBudgetFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+
+/*
+오류가 많이 섞인 트래픽을 재현하는 부하 발생기
+- 실행: ./gradlew loadTest -Dloadtest.rate=500 -Dloadtest.duration=60
+
+open model (coordinated omission 방지)
+- 요청은 "보내기로 한 시각(intended start)"에 맞춰 고정 간격으로 보낸다. 앞 요청의 응답을 기다리지 않는다. (sendAsync)
+- 응답 시간은 실제로 보낸 시각이 아니라 보내기로 한 시각부터 잰다.
+  서버가 밀려서 발생기가 늦게 보내게 되더라도 그 지연이 결과에 그대로 드러난다.
+
+설정 (시스템 프로퍼티)
+- loadtest.rate: 초당 요청 수 (기본 200)
+- loadtest.duration: 측정 시간(초) (기본 30)
+- loadtest.warmup: 측정 전 워밍업 시간(초), 결과에 포함하지 않는다. (기본 5)
+- loadtest.mix: 요청 비율, 형식은 Endpoint 참고 (기본 DEFAULT_MIX, half-errors 는 HALF_ERROR_MIX, 404-flood 는 NOT_FOUND_FLOOD_MIX)
+- loadtest.http-version: HTTP_1_1 또는 HTTP_2 (기본 HTTP_1_1, HTTP_2 는 http:// 에서 h2c 업그레이드를 시도한다.)
+- loadtest.target: 외부 서버 주소 (예: http://localhost:8080). 없으면 내장 서버를 임의 포트로 띄운다.
+- loadtest.server.*: 내장 서버에 넘길 설정 (예: -Dloadtest.server.error.budget.client.burst=100000)
+- loadtest.report-dir: 결과 저장 위치 (기본 build/loadtest)
+- loadtest.baseline: 비교 기준 csv (기본 report-dir/latest.csv, 즉 직전 실행)
+- loadtest.seed: 요청 순서를 정하는 난수 seed (기본 42, 같은 seed 면 같은 순서로 요청한다.)
+
+오류 응답 예산 (ErrorBudget)
+- 기본 예산(클라이언트 초당 20건)이면 127.0.0.1 한 곳에서 보내는 부하는 곧 예산이 바닥나서
+  오류 처리 경로가 아니라 최소 응답(StaticErrorResponse)만 재게 된다.
+- 그래서 내장 서버는 예산을 사실상 없앤 상태로 띄운다. 단, 404-flood 처럼 예산 동작을 보려는 경우나
+  loadtest.server.error.budget.* 를 직접 지정한 경우는 그대로 둔다.
+- 예산 때문에 잘린 응답(X-Error-Budget: exhausted)은 결과 분류를 "budget" 으로 따로 센다.
+
+연결 재사용 확인 (loadtest.count-connections, 기본 true)
+- 발생기와 서버 사이에 TCP 중계기(ConnectionCountingProxy)를 두고, 중계기가 accept 한 연결 수를 초 단위로 센다.
+  응답 헤더가 아니라 실제로 새로 맺은 연결이므로 서버가 끊은 경우, 클라이언트가 새로 연 경우가 모두 들어간다.
+- 중계 때문에 응답 시간이 조금 늘어난다. 응답 시간만 비교할 때는 -Dloadtest.count-connections=false 로 끈다.
+- 예: 오류 50% 트래픽에서 keep-alive 모드 비교
+  ./gradlew loadTest -Dloadtest.mix=half-errors
+  ./gradlew loadTest -Dloadtest.mix=half-errors -Dloadtest.server.error.response.keep-alive=true
+  ./gradlew loadTest -Dloadtest.mix=half-errors -Dloadtest.server.error.response.keep-alive=true -Dloadtest.http-version=HTTP_2
+- HTTP/1.1 에서는 톰캣이 400, 500 응답 뒤에 연결을 끊으므로 모드와 상관없이 그만큼 새 연결이 생긴다.
+  (ErrorBudgetFilter 참고)
+
+h2c
+- 서버의 HTTP/2 (h2c) 는 h2c 프로필에서만 켜진다. (application-h2c.properties)
+- 내장 서버에 loadtest.http-version=HTTP_2 로 요청하면 h2c 프로필을 함께 켜서 띄운다.
+
+404 폭주
+- ./gradlew loadTest -Dloadtest.mix=404-flood -Dloadtest.rate=2000
+- 정상 요청 20% 사이에 404 가 80% 섞여 들어온다. (모두 같은 클라이언트 주소에서 온다.)
+- 오류 응답 예산(ErrorBudget)이 바닥난 뒤의 404 는 재요청 없이 최소 응답으로 끝나야 하고,
+  /api/members/spring 의 지연 분포는 오류가 없는 실행과 비슷하게 유지되어야 한다.
+ */
+public class LoadTest {
+
+    static final String DEFAULT_MIX = String.join(",",
+            "/api/members/spring:20",
+            "/api/members/ex:5",
+            "/api/members/bad:5",
+            "/api/members/user-ex:5",
+            "/api2/members/spring:5",
+            "/api2/members/bad:3",
+            "/api3/members/user-ex:3",
+            "/api/response-status-ex1:3",
+            "/api/response-status-ex2:3",
+            "/api/default-handler-ex?data=qqq:5",
+            "/api/default-handler-ex:2",
+            "/api/validation-ex?memberId=&age=abc:3",
+            "/api/validation-ex?memberId=m1&age=30:2",
+            "/error-ex@html:3",
+            "/error-404@html:3",
+            "/error-400@html:2",
+            "/error-500@html:2");
+
+    // 정상 50%, 오류 50% (sendError, WAS 까지 올라가는 예외, @ExceptionHandler 섞어서)
+    static final String HALF_ERROR_MIX = String.join(",",
+            "/api/members/spring:50",
+            "/api/members/bad:10",
+            "/api/members/ex:5",
+            "/error-400:10",
+            "/error-404:10",
+            "/error-500:5",
+            "/error-ex:10");
+
+    // 정상 20%, 404 80% (ServletExceptionController 의 sendError(404), 매핑이 없는 경로)
+    static final String NOT_FOUND_FLOOD_MIX = String.join(",",
+            "/api/members/spring:20",
+            "/error-404:40",
+            "/no-such-page:40");
+
+    private static final List<String> UNLIMITED_BUDGET = List.of(
+            "--error.budget.client.permits-per-second=1000000",
+            "--error.budget.client.burst=1000000",
+            "--error.budget.route.permits-per-second=1000000",
+            "--error.budget.route.burst=1000000");
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        long durationSeconds = Long.parseLong(System.getProperty("loadtest.duration", "30"));
+        long warmupSeconds = Long.parseLong(System.getProperty("loadtest.warmup", "5"));
+        String mix = System.getProperty("loadtest.mix", DEFAULT_MIX);
+        List<Endpoint> endpoints = Endpoint.parseMix(preset(mix));
+        HttpClient.Version version = HttpClient.Version.valueOf(System.getProperty("loadtest.http-version", "HTTP_1_1"));
+        Path reportDir = Paths.get(System.getProperty("loadtest.report-dir", "build/loadtest"));
+        Path baselinePath = Paths.get(System.getProperty("loadtest.baseline", reportDir.resolve("latest.csv").toString()));
+        Random random = new Random(Long.parseLong(System.getProperty("loadtest.seed", "42")));
+
+        boolean countConnections = Boolean.parseBoolean(System.getProperty("loadtest.count-connections", "true"));
+        LoadReport report = new LoadReport(durationSeconds);
+
+        ConfigurableApplicationContext context = null;
+        String target = System.getProperty("loadtest.target");
+        if (target == null) {
+            context = startServer(mix, version);
+            target = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        ConnectionCountingProxy proxy = null;
+        String serverTarget = target;
+        if (countConnections) {
+            URI uri = URI.create(target);
+            int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+            proxy = new ConnectionCountingProxy(uri.getHost(), port, report::recordConnectionOpened);
+            target = uri.getScheme() + "://localhost:" + proxy.getPort();
+        }
+
+        ExecutorService callbackExecutor = Executors.newCachedThreadPool();
+        HttpClient client = HttpClient.newBuilder()
+                .version(version)
+                .executor(callbackExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        HttpRequest[] requests = new HttpRequest[endpoints.size()];
+        int[] cumulativeWeights = new int[endpoints.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint endpoint = endpoints.get(i);
+            requests[i] = HttpRequest.newBuilder(URI.create(target + endpoint.path))
+                    .header("Accept", endpoint.accept)
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            totalWeight += endpoint.weight;
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        AtomicInteger inFlight = new AtomicInteger();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        report.measureBetween(measureFrom, end);
+
+        System.out.printf("load test: target=%s%s rate=%.0f/s warmup=%ds duration=%ds endpoints=%d version=%s%n",
+                serverTarget, proxy != null ? " (via proxy " + target + ")" : "",
+                rate, warmupSeconds, durationSeconds, endpoints.size(), version);
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int index = pick(cumulativeWeights, random.nextInt(totalWeight));
+            String name = endpoints.get(index).name();
+            boolean measured = intended - measureFrom >= 0;
+
+            inFlight.incrementAndGet();
+            client.sendAsync(requests[index], HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - intended;
+                        if (measured) {
+                            report.record(name, outcome(response, error), latency);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        // 보낸 요청이 모두 끝날 때까지 기다린다. (요청 timeout 이 30초이므로 그 이상 기다리지 않는다.)
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(35);
+        while (inFlight.get() > 0 && System.nanoTime() - drainDeadline < 0) {
+            Thread.sleep(10);
+        }
+        callbackExecutor.shutdown();
+
+        String runId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Map<String, long[]> baseline = LoadReport.readBaseline(baselinePath);
+        report.print(System.out, baseline, durationSeconds);
+        report.write(reportDir, runId, baseline, durationSeconds);
+        System.out.println("report written to " + reportDir.toAbsolutePath());
+
+        if (proxy != null) {
+            proxy.close();
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    // loadtest.server.* 는 명령행 인자(--key=value)로 넘긴다. application.properties 보다 우선한다.
+    private static ConfigurableApplicationContext startServer(String mix, HttpClient.Version version) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        if (version == HttpClient.Version.HTTP_2) {
+            args.add("--spring.profiles.include=h2c");
+        }
+        boolean budgetConfigured = false;
+        for (Map.Entry<Object, Object> entry : System.getProperties().entrySet()) {
+            String name = entry.getKey().toString();
+            if (name.startsWith("loadtest.server.")) {
+                String property = name.substring("loadtest.server.".length());
+                args.add("--" + property + "=" + entry.getValue());
+                budgetConfigured |= property.startsWith("error.budget.");
+            }
+        }
+        if (!budgetConfigured && !"404-flood".equals(mix)) {
+            args.addAll(UNLIMITED_BUDGET);
+            System.out.println("error budget lifted for the embedded server (set loadtest.server.error.budget.* to keep it)");
+        }
+        return SpringApplication.run(ExceptionApplication.class, args.toArray(new String[0]));
+    }
+
+    static String preset(String mix) {
+        switch (mix) {
+            case "half-errors":
+                return HALF_ERROR_MIX;
+            case "404-flood":
+                return NOT_FOUND_FLOOD_MIX;
+            default:
+                return mix;
+        }
+    }
+
+    private static int pick(int[] cumulativeWeights, int value) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private static String outcome(HttpResponse<?> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            return cause.getClass().getSimpleName();
+        }
+        if (response.headers().firstValue(ErrorBudgetFilter.BUDGET_HEADER).isPresent()) {
+            return "budget";
+        }
+        return (response.statusCode() / 100) + "xx";
+    }
+}
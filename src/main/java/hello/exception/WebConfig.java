@@ -1,12 +1,29 @@
 package hello.exception;
 
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.ErrorResultJsonConverter;
+import hello.exception.filter.ErrorBudget;
+import hello.exception.filter.ErrorBudgetFilter;
 import hello.exception.filter.LogFilter;
+import hello.exception.interceptor.DebugEndpointInterceptor;
 import hello.exception.interceptor.LogInterceptor;
+import hello.exception.interceptor.SlowRequestReservoir;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.memory.MemoryPressureMonitor;
 import hello.exception.resolver.MyHandlerExceptionResolver;
 import hello.exception.resolver.UserHandlerExceptionResolver;
+import hello.exception.trace.TraceFilter;
+import hello.exception.trace.TraceHandlerExceptionResolver;
+import hello.exception.warmup.ReadinessGateFilter;
+import hello.exception.warmup.WarmUpRequests;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -33,11 +50,26 @@ import java.util.List;
  */
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final SlowRequestReservoir slowRequestReservoir;
+    private final ErrorLogGovernor errorLogGovernor;
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MemoryPressureMonitor memoryPressureMonitor;
+
+    @Value("${debug.endpoints.token:}")
+    private String debugEndpointsToken;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new LogInterceptor())
+        // 내부 정보를 보여주는 /debug 엔드포인트는 토큰이 맞을 때만 연다. (DebugEndpointInterceptor 참고)
+        registry.addInterceptor(new DebugEndpointInterceptor(debugEndpointsToken))
+                .order(0)
+                .addPathPatterns("/debug/slow-requests", "/debug/error-journal");
+
+        registry.addInterceptor(new LogInterceptor(slowRequestReservoir))
                 .order(1)
                 .addPathPatterns("/**")
                 .excludePathPatterns("/css/**", "*.ico", "/error", "/error-page/**");
@@ -49,8 +81,59 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
-        resolvers.add(new MyHandlerExceptionResolver());
-        resolvers.add(new UserHandlerExceptionResolver());
+        resolvers.add(0, new TraceHandlerExceptionResolver());   // 예외가 컨트롤러 밖으로 나온 시점 기록 (항상 null 반환)
+        resolvers.add(new MyHandlerExceptionResolver(errorLogGovernor, errorJournal, errorCodeRegistry, memoryPressureMonitor));
+        resolvers.add(new UserHandlerExceptionResolver(errorLogGovernor, errorJournal, errorCodeRegistry, memoryPressureMonitor));
+    }
+
+    // ErrorResult 는 Jackson 보다 먼저 미리 만든 JSON 조각으로 쓴다. (CBOR, Smile 은 Jackson 컨버터가 처리)
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new ErrorResultJsonConverter(errorCodeRegistry));
+    }
+
+    /*
+    준비 전 요청 차단 필터는 가장 먼저 실행한다. (REQUEST 디스패치에만 적용)
+    워밍업이 끝나고 readiness 가 ACCEPTING_TRAFFIC 이 되기 전까지 외부 요청은 503 으로 돌려보낸다. (ReadinessGateFilter 참고)
+     */
+    @Bean
+    public FilterRegistrationBean<Filter> readinessGateFilter(ApplicationAvailability applicationAvailability,
+                                                              WarmUpRequests warmUpRequests) {
+        FilterRegistrationBean<Filter> filterRegistrationBean = new FilterRegistrationBean<>();
+        filterRegistrationBean.setFilter(new ReadinessGateFilter(applicationAvailability, warmUpRequests));
+        filterRegistrationBean.setOrder(-2);
+        filterRegistrationBean.addUrlPatterns("/*");
+        return filterRegistrationBean;
+    }
+
+    /*
+    구간 기록 필터는 준비 전 요청 차단 필터 다음, 가장 바깥에서 REQUEST, ERROR 디스패치 모두에 적용한다.
+    ERROR 재요청도 같은 trace 에 ERROR_DISPATCH 구간으로 기록된다.
+     */
+    @Bean
+    public FilterRegistrationBean<Filter> traceFilter() {
+        FilterRegistrationBean<Filter> filterRegistrationBean = new FilterRegistrationBean<>();
+        filterRegistrationBean.setFilter(new TraceFilter());
+        filterRegistrationBean.setOrder(-1);
+        filterRegistrationBean.addUrlPatterns("/*");
+        filterRegistrationBean.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ERROR);
+        return filterRegistrationBean;
+    }
+
+    /*
+    오류 응답 예산 필터는 LogFilter 보다 먼저 실행한다.
+    DispatcherType 을 지정하지 않았으므로 REQUEST 에만 적용된다. (ERROR 재요청은 예산을 다시 소비하지 않는다.)
+    error.response.keep-alive=true 이거나 메모리가 부족하면 모든 오류를 재요청 없이 바로 쓴다. (ErrorBudgetFilter 참고)
+     */
+    @Bean
+    public FilterRegistrationBean<Filter> errorBudgetFilter(ErrorBudget errorBudget, WarmUpRequests warmUpRequests,
+                                                            @Value("${error.response.keep-alive:false}") boolean keepAlive) {
+        FilterRegistrationBean<Filter> filterRegistrationBean = new FilterRegistrationBean<>();
+        filterRegistrationBean.setFilter(new ErrorBudgetFilter(errorBudget, warmUpRequests, keepAlive, memoryPressureMonitor,
+                errorCodeRegistry, errorJournal, errorLogGovernor));
+        filterRegistrationBean.setOrder(0);
+        filterRegistrationBean.addUrlPatterns("/*");
+        return filterRegistrationBean;
     }
 
     //@Bean
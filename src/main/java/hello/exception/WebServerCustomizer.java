@@ -88,12 +88,17 @@ public class WebServerCustomizer implements WebServerFactoryCustomizer<Configura
         - 웹 브라우저(클라이언트)는 서버 내부에서 이런 일이 일어나는지 젼혀 모른다. (redirect 가 아니기 때문)
          */
 
+        factory.addErrorPages(errorPages());
+    }
+
+    // 이 Customizer 가 빈으로 등록되어 있을 때만 ExceptionHandlerRegistry 도 이 목록을 사용한다. (꺼져 있으면 /error)
+    public static ErrorPage[] errorPages() {
         ErrorPage errorPage404 = new ErrorPage(HttpStatus.NOT_FOUND, "/error-page/404");
         ErrorPage errorPage500 = new ErrorPage(HttpStatus.INTERNAL_SERVER_ERROR, "/error-page/500");
 
         ErrorPage errorPageEx = new ErrorPage(RuntimeException.class, "/error-page/500");
 
-        factory.addErrorPages(errorPage404, errorPage500, errorPageEx);
+        return new ErrorPage[]{errorPage404, errorPage500, errorPageEx};
     }
 
 }
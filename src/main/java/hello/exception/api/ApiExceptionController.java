@@ -6,12 +6,19 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
 @Slf4j
 @RestController
 public class ApiExceptionController {
@@ -51,6 +58,12 @@ public class ApiExceptionController {
         return "ok";
     }
 
+    // 검증 실패 시 BindException -> ValidationControllerAdvice
+    @GetMapping("/api/validation-ex")
+    public MemberForm validationException(@Validated @ModelAttribute MemberForm form) {
+        return form;
+    }
+
     @Data
     @AllArgsConstructor
     static class MemberDto {
@@ -58,5 +71,16 @@ public class ApiExceptionController {
         private String name;
     }
 
+    @Data
+    static class MemberForm {
+        @NotBlank
+        private String memberId;
+
+        @NotNull
+        @Min(1)
+        @Max(150)
+        private Integer age;
+    }
+
 
 }
@@ -0,0 +1,66 @@
+package hello.exception.exhandler;
+
+import org.springframework.http.HttpStatus;
+
+
+/*
+오류 코드
+- 응답의 code 문자열, HTTP 상태 코드, 메시지 키(messages.properties)를 한 곳에 모은다.
+- id 는 지표(ErrorCodeRegistry), 오류 기록(ErrorJournal)에서 쓰는 작은 정수다. 한 번 정한 id 는 바꾸지 않는다.
+- 예외 타입 -> 오류 코드 연결은 ErrorCodeRegistry 가 한다.
+ */
+public enum ErrorCode {
+
+    EX(0, "EX", HttpStatus.INTERNAL_SERVER_ERROR, "error.code.EX"),
+    BAD(1, "BAD", HttpStatus.BAD_REQUEST, "error.code.BAD"),
+    USER_EX(2, "USER-EX", HttpStatus.BAD_REQUEST, "error.code.USER-EX"),
+    BAD_INPUT(3, "BAD-INPUT", HttpStatus.BAD_REQUEST, "error.code.BAD-INPUT"),
+    NOT_FOUND(4, "NOT-FOUND", HttpStatus.NOT_FOUND, "error.code.NOT-FOUND"),
+    UNAUTHORIZED(5, "UNAUTHORIZED", HttpStatus.UNAUTHORIZED, "error.code.UNAUTHORIZED"),
+    FORBIDDEN(6, "FORBIDDEN", HttpStatus.FORBIDDEN, "error.code.FORBIDDEN"),
+    METHOD_NOT_ALLOWED(7, "METHOD-NOT-ALLOWED", HttpStatus.METHOD_NOT_ALLOWED, "error.code.METHOD-NOT-ALLOWED"),
+    NOT_ACCEPTABLE(8, "NOT-ACCEPTABLE", HttpStatus.NOT_ACCEPTABLE, "error.code.NOT-ACCEPTABLE"),
+    CONFLICT(9, "CONFLICT", HttpStatus.CONFLICT, "error.code.CONFLICT"),
+    UNSUPPORTED_MEDIA_TYPE(10, "UNSUPPORTED-MEDIA-TYPE", HttpStatus.UNSUPPORTED_MEDIA_TYPE, "error.code.UNSUPPORTED-MEDIA-TYPE"),
+    TOO_MANY_REQUESTS(11, "TOO-MANY-REQUESTS", HttpStatus.TOO_MANY_REQUESTS, "error.code.TOO-MANY-REQUESTS");
+
+    private static final ErrorCode[] BY_ID = new ErrorCode[values().length];
+
+    static {
+        for (ErrorCode errorCode : values()) {
+            BY_ID[errorCode.id] = errorCode;
+        }
+    }
+
+    private final int id;
+    private final String code;
+    private final HttpStatus status;
+    private final String messageKey;
+
+    ErrorCode(int id, String code, HttpStatus status, String messageKey) {
+        this.id = id;
+        this.code = code;
+        this.status = status;
+        this.messageKey = messageKey;
+    }
+
+    public static ErrorCode of(int id) {
+        return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+}
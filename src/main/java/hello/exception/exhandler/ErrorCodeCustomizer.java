@@ -0,0 +1,14 @@
+package hello.exception.exhandler;
+
+import java.util.Map;
+
+/*
+예외 타입 -> 오류 코드 연결을 추가, 변경할 때 빈으로 등록한다.
+- ErrorCodeRegistry 가 만들어질 때 한 번 호출된다. (그 뒤에는 바뀌지 않는다.)
+- 예: mappings.put(NumberFormatException.class, ErrorCode.BAD_INPUT);
+ */
+@FunctionalInterface
+public interface ErrorCodeCustomizer {
+
+    void customize(Map<Class<? extends Throwable>, ErrorCode> mappings);
+}
@@ -0,0 +1,258 @@
+package hello.exception.exhandler;
+
+import hello.exception.exception.UserException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import javax.validation.ConstraintViolationException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*
+오류 코드 레지스트리
+- 예외 타입 -> ErrorCode 연결. 가장 가까운 부모 타입의 연결을 따르고, 없으면 EX 이다.
+  타입마다 한 번만 찾고 ClassValue 에 캐시한다.
+- 연결을 바꾸려면 ErrorCodeCustomizer 빈을 등록한다.
+- 코드마다 기본 메시지(messages.properties 의 error.code.*)와 JSON body 를 시작할 때 한 번 만들어 둔다.
+    - 기본 메시지로 응답하면 미리 만든 body 를 그대로 쓴다. (ErrorResultJsonConverter)
+    - 예외 메시지로 응답하면 미리 만든 앞부분({"code":"BAD","message":) 뒤에 메시지만 붙인다.
+      메시지는 결과 배열에 바로 UTF-8 로 쓴다. (응답 하나에 배열 하나만 만든다.)
+- 코드별 발생 수를 id 로 센다. (문자열 키 Map 을 쓰지 않는다.)
+- body 형식은 ErrorResult 참고. (예전 {"ex", ...}, {"status", ...} 응답에서 바뀐 점)
+ */
+@Slf4j
+@Component
+public class ErrorCodeRegistry {
+
+    private static final ErrorCode[] CODES = ErrorCode.values();
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<Class<? extends Throwable>, ErrorCode> mappings;
+    private final ClassValue<ErrorCode> codes = new ClassValue<>() {
+        @Override
+        protected ErrorCode computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                ErrorCode errorCode = mappings.get(current);
+                if (errorCode != null) {
+                    return errorCode;
+                }
+            }
+            return ErrorCode.EX;
+        }
+    };
+
+    private final String[] messages = new String[CODES.length];
+    private final byte[][] jsonBodies = new byte[CODES.length][];
+    private final byte[][] jsonPrefixes = new byte[CODES.length][];
+    private final LongAdder[] counts = new LongAdder[CODES.length];
+
+    public ErrorCodeRegistry(MessageSource messageSource, ObjectProvider<ErrorCodeCustomizer> customizers) {
+        Map<Class<? extends Throwable>, ErrorCode> mappings = new HashMap<>();
+        mappings.put(Exception.class, ErrorCode.EX);
+        mappings.put(IllegalArgumentException.class, ErrorCode.BAD);
+        mappings.put(UserException.class, ErrorCode.USER_EX);
+        mappings.put(MethodArgumentTypeMismatchException.class, ErrorCode.BAD_INPUT);
+        mappings.put(MissingServletRequestParameterException.class, ErrorCode.BAD_INPUT);
+        mappings.put(BindException.class, ErrorCode.BAD_INPUT);
+        mappings.put(ConstraintViolationException.class, ErrorCode.BAD_INPUT);
+        mappings.put(HttpRequestMethodNotSupportedException.class, ErrorCode.METHOD_NOT_ALLOWED);
+        mappings.put(HttpMediaTypeNotSupportedException.class, ErrorCode.UNSUPPORTED_MEDIA_TYPE);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(mappings));
+        this.mappings = Map.copyOf(mappings);
+
+        for (ErrorCode errorCode : CODES) {
+            int id = errorCode.getId();
+            messages[id] = messageSource.getMessage(errorCode.getMessageKey(), null, errorCode.getCode(), Locale.getDefault());
+            jsonPrefixes[id] = prefix(errorCode.getCode()).getBytes(StandardCharsets.UTF_8);
+            jsonBodies[id] = json(errorCode.getCode(), messages[id]);
+            counts[id] = new LongAdder();
+        }
+    }
+
+    public ErrorCode codeOf(Throwable ex) {
+        return ex != null ? codes.get(ex.getClass()) : ErrorCode.EX;
+    }
+
+    // 예외 없이 sendError 로 들어온 오류 (ErrorPageController, ErrorBudgetFilter)
+    // 상태 코드마다 따로 코드가 있으면 그 코드, 없으면 5xx 는 EX, 나머지는 BAD 이다.
+    public ErrorCode codeOf(int status) {
+        switch (status) {
+            case 401:
+                return ErrorCode.UNAUTHORIZED;
+            case 403:
+                return ErrorCode.FORBIDDEN;
+            case 404:
+                return ErrorCode.NOT_FOUND;
+            case 405:
+                return ErrorCode.METHOD_NOT_ALLOWED;
+            case 406:
+                return ErrorCode.NOT_ACCEPTABLE;
+            case 409:
+                return ErrorCode.CONFLICT;
+            case 415:
+                return ErrorCode.UNSUPPORTED_MEDIA_TYPE;
+            case 429:
+                return ErrorCode.TOO_MANY_REQUESTS;
+            default:
+                return status >= 500 ? ErrorCode.EX : ErrorCode.BAD;
+        }
+    }
+
+    public String message(ErrorCode errorCode) {
+        return messages[errorCode.getId()];
+    }
+
+    /**
+     * 응답 body. message 가 null 이면 코드의 기본 메시지를 쓴다.
+     */
+    public ErrorResult result(ErrorCode errorCode, String message) {
+        return ErrorResult.of(errorCode, message != null ? message : message(errorCode));
+    }
+
+    public void count(ErrorCode errorCode) {
+        counts[errorCode.getId()].increment();
+    }
+
+    public long getCount(ErrorCode errorCode) {
+        return counts[errorCode.getId()].sum();
+    }
+
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ErrorCode errorCode : CODES) {
+            result.put(errorCode.getCode(), counts[errorCode.getId()].sum());
+        }
+        return result;
+    }
+
+    /**
+     * {"code":"...","message":"..."} JSON. 기본 메시지면 미리 만든 배열을 그대로 돌려준다. (수정하면 안 된다.)
+     */
+    public byte[] json(ErrorCode errorCode, String message) {
+        int id = errorCode.getId();
+        if (message != null && message.equals(messages[id])) {
+            return jsonBodies[id];
+        }
+        // 길이를 먼저 세고 결과 배열 하나에 바로 UTF-8 로 쓴다. (StringBuilder, String, getBytes 중간 복사 없음)
+        byte[] prefix = jsonPrefixes[id];
+        byte[] body = new byte[prefix.length + quotedLength(message) + 1];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        int end = writeQuoted(message, body, prefix.length);
+        body[end] = '}';
+        return body;
+    }
+
+    // ErrorCode 없이 만든 ErrorResult
+    public static byte[] json(String code, String message) {
+        StringBuilder json = new StringBuilder(prefix(code));
+        return appendString(json, message).append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String prefix(String code) {
+        return appendString(new StringBuilder("{\"code\":"), code).append(",\"message\":").toString();
+    }
+
+    // writeQuoted 가 쓸 바이트 수
+    private static int quotedLength(String value) {
+        if (value == null) {
+            return 4;
+        }
+        int length = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                length += 2;
+            } else if (c < 0x20) {
+                length += 6;
+            } else if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;   // 짝이 없는 surrogate 는 String.getBytes 처럼 '?' 로 쓴다.
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // appendString 과 같은 내용을 UTF-8 로 out[offset] 부터 쓰고, 다 쓴 다음 위치를 돌려준다.
+    private static int writeQuoted(String value, byte[] out, int offset) {
+        int pos = offset;
+        if (value == null) {
+            out[pos++] = 'n';
+            out[pos++] = 'u';
+            out[pos++] = 'l';
+            out[pos++] = 'l';
+            return pos;
+        }
+        out[pos++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[pos++] = '\\';
+                out[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                out[pos++] = '\\';
+                out[pos++] = 'u';
+                out[pos++] = '0';
+                out[pos++] = '0';
+                out[pos++] = HEX[c >> 4];
+                out[pos++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out[pos++] = '"';
+        return pos;
+    }
+
+    private static StringBuilder appendString(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04X", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+}
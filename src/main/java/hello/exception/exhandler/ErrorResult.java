@@ -1,11 +1,43 @@
 package hello.exception.exhandler;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+
+/*
+API 오류 응답 body: {"code": ErrorCode 의 코드, "message": 메시지}
+- ExControllerAdvice, UserHandlerExceptionResolver, ErrorPageController, ErrorBudgetFilter 가 모두 이 형식으로 응답한다.
+
+호환되지 않는 변경 (클라이언트가 보는 형식)
+- UserHandlerExceptionResolver: {"ex": 예외 클래스 이름, "message": ...} -> {"code": "USER-EX", "message": ...}
+- ErrorPageController(/error-page/500, application/json): {"status": 상태 코드, "message": ...} -> {"code": ..., "message": ...}
+  상태 코드는 응답 상태 줄로만 알 수 있다. /error-page/404 도 같은 형식으로 응답한다.
+- ex, status 필드를 읽던 클라이언트는 code 를 읽도록 바꿔야 한다. 메시지가 없으면 null 대신 오류 코드의 기본 메시지가 들어간다.
+- ExControllerAdvice 의 형식과 코드 문자열(BAD, USER-EX, EX)은 그대로다.
+ */
 @Data
-@AllArgsConstructor
+@NoArgsConstructor  // 클라이언트에서 역직렬화할 때 필요 (ErrorResultCodec)
 public class ErrorResult {
     private String code;
     private String message;
+
+    // ErrorCodeRegistry 로 만든 경우에만 있다. 응답 body 에는 나가지 않는다. (ErrorResultJsonConverter 가 사용)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ErrorCode errorCode;
+
+    public ErrorResult(String code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public static ErrorResult of(ErrorCode errorCode, String message) {
+        ErrorResult errorResult = new ErrorResult(errorCode.getCode(), message);
+        errorResult.errorCode = errorCode;
+        return errorResult;
+    }
 }
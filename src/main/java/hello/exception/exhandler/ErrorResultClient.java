@@ -0,0 +1,70 @@
+package hello.exception.exhandler;
+
+import hello.exception.negotiation.ErrorFormat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+
+/*
+내부 서비스용 오류 응답 클라이언트
+- 원하는 바이너리 형식(CBOR, Smile)을 먼저, JSON 을 낮은 q 로 요청한다.
+  서버가 바이너리를 못 주는 경로(@ResponseBody 가 아닌 곳 등)에서도 JSON 으로는 받을 수 있다.
+- 오류 응답(4xx, 5xx)이면 Content-Type 에 맞춰 ErrorResult 로 디코딩한다. (ErrorResultCodec)
+- HttpClient 는 호출하는 쪽에서 만들어 넘긴다. (연결 재사용, executor 설정은 호출하는 쪽 몫)
+
+사용 예
+    ErrorResultClient client = new ErrorResultClient(HttpClient.newHttpClient(), ErrorFormat.CBOR);
+    HttpResponse<byte[]> response = client.get(URI.create("http://member-service/api/members/1"));
+    ErrorResult error = ErrorResultClient.errorOf(response);   // 정상 응답이면 null
+ */
+public class ErrorResultClient {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final HttpClient httpClient;
+    private final String accept;
+
+    public ErrorResultClient(HttpClient httpClient, ErrorFormat format) {
+        if (!format.isStructured()) {
+            throw new IllegalArgumentException("지원하지 않는 형식: " + format);
+        }
+        this.httpClient = httpClient;
+        this.accept = format == ErrorFormat.JSON
+                ? "application/json"
+                : ErrorResultCodec.contentType(format) + ", application/json;q=0.5";
+    }
+
+    /**
+     * headers 는 이름, 값을 번갈아 적는다. (HttpRequest.Builder#headers 와 같다.)
+     */
+    public HttpResponse<byte[]> get(URI uri, String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("Accept", accept)
+                .timeout(TIMEOUT)
+                .GET();
+        if (headers.length > 0) {
+            builder.headers(headers);
+        }
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * 오류 응답이 아니거나 body 가 JSON, CBOR, Smile 이 아니면 (오류 화면 HTML 등) null 을 돌려준다.
+     */
+    public static ErrorResult errorOf(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() < 400 || response.body() == null || response.body().length == 0) {
+            return null;
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        if (contentType == null || !(contentType.startsWith("application/json") || contentType.startsWith(ErrorResultCodec.APPLICATION_CBOR)
+                || contentType.startsWith(ErrorResultCodec.APPLICATION_SMILE))) {
+            return null;
+        }
+        return ErrorResultCodec.decode(response.body(), ErrorResultCodec.formatOf(contentType));
+    }
+}
@@ -0,0 +1,103 @@
+package hello.exception.exhandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import hello.exception.negotiation.ErrorFormat;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/*
+오류 응답 body 인코딩 (JSON, CBOR, Smile)
+- 내부 서비스 간 호출은 ErrorResult 를 엄청나게 많이 주고받는다. CBOR, Smile 은 JSON 보다 작고 파싱이 빠르다.
+- @RestController, @RestControllerAdvice 의 응답은 스프링 메시지 컨버터가 Accept 에 맞춰 알아서 처리한다.
+  (jackson-dataformat-cbor, jackson-dataformat-smile 이 클래스패스에 있으면 컨버터가 자동 등록된다.)
+- 이 클래스는 HandlerExceptionResolver 처럼 response 에 직접 쓰는 곳과, 응답을 받는 클라이언트에서 사용한다.
+- 형식마다 ErrorResult 용 ObjectWriter, ObjectReader 를 미리 만들어 둔다. (직렬화기 탐색을 매번 하지 않는다.)
+
+클라이언트 사용 예
+- ErrorResult result = ErrorResultCodec.decode(responseBody, ErrorResultCodec.formatOf(contentType));
+- HTTP 요청까지 포함한 클라이언트는 ErrorResultClient 참고
+ */
+public final class ErrorResultCodec {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    private static final Map<ErrorFormat, ObjectMapper> MAPPERS = new EnumMap<>(ErrorFormat.class);
+    private static final Map<ErrorFormat, ObjectWriter> WRITERS = new EnumMap<>(ErrorFormat.class);
+    private static final Map<ErrorFormat, ObjectReader> READERS = new EnumMap<>(ErrorFormat.class);
+
+    static {
+        MAPPERS.put(ErrorFormat.JSON, new ObjectMapper());
+        MAPPERS.put(ErrorFormat.CBOR, new CBORMapper());
+        MAPPERS.put(ErrorFormat.SMILE, new SmileMapper());
+        MAPPERS.forEach((format, mapper) -> {
+            WRITERS.put(format, mapper.writerFor(ErrorResult.class));
+            READERS.put(format, mapper.readerFor(ErrorResult.class));
+        });
+    }
+
+    private ErrorResultCodec() {
+    }
+
+    public static byte[] encode(ErrorResult errorResult, ErrorFormat format) throws JsonProcessingException {
+        return writer(format).writeValueAsBytes(errorResult);
+    }
+
+    // ErrorResult 가 아닌 오류 body (Map 등)
+    public static byte[] encodeValue(Object body, ErrorFormat format) throws JsonProcessingException {
+        return mapper(format).writeValueAsBytes(body);
+    }
+
+    public static ErrorResult decode(byte[] body, ErrorFormat format) throws IOException {
+        ObjectReader reader = READERS.get(format);
+        if (reader == null) {
+            throw new IllegalArgumentException("지원하지 않는 형식: " + format);
+        }
+        return reader.readValue(body);
+    }
+
+    public static String contentType(ErrorFormat format) {
+        switch (format) {
+            case CBOR:
+                return APPLICATION_CBOR;
+            case SMILE:
+                return APPLICATION_SMILE;
+            default:
+                return "application/json";
+        }
+    }
+
+    public static ErrorFormat formatOf(String contentType) {
+        if (contentType != null && contentType.startsWith(APPLICATION_CBOR)) {
+            return ErrorFormat.CBOR;
+        }
+        if (contentType != null && contentType.startsWith(APPLICATION_SMILE)) {
+            return ErrorFormat.SMILE;
+        }
+        return ErrorFormat.JSON;
+    }
+
+    private static ObjectWriter writer(ErrorFormat format) {
+        ObjectWriter writer = WRITERS.get(format);
+        if (writer == null) {
+            throw new IllegalArgumentException("지원하지 않는 형식: " + format);
+        }
+        return writer;
+    }
+
+    private static ObjectMapper mapper(ErrorFormat format) {
+        ObjectMapper mapper = MAPPERS.get(format);
+        if (mapper == null) {
+            throw new IllegalArgumentException("지원하지 않는 형식: " + format);
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,58 @@
+package hello.exception.exhandler;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+
+/*
+ErrorResult 전용 JSON 메시지 컨버터
+- Jackson 컨버터보다 앞에 등록한다. (WebConfig#extendMessageConverters)
+- ErrorCodeRegistry 가 미리 만든 JSON 조각을 그대로 쓴다. 직렬화기 탐색, 필드 반사 접근이 없다.
+- Content-Length 를 미리 정해서 쓴다.
+- ErrorResult 자체만 처리한다. (ValidationErrorResult 같은 자식 클래스, CBOR, Smile 은 Jackson 컨버터가 처리)
+- 쓰기 전용이다. 요청 body 를 ErrorResult 로 읽는 일은 없다.
+ */
+public class ErrorResultJsonConverter extends AbstractHttpMessageConverter<ErrorResult> {
+
+    private final ErrorCodeRegistry errorCodeRegistry;
+
+    public ErrorResultJsonConverter(ErrorCodeRegistry errorCodeRegistry) {
+        super(MediaType.APPLICATION_JSON);
+        this.errorCodeRegistry = errorCodeRegistry;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == ErrorResult.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ErrorResult readInternal(Class<? extends ErrorResult> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ErrorResult 는 읽을 수 없습니다", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ErrorResult errorResult, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body = encode(errorResult);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+
+    byte[] encode(ErrorResult errorResult) {
+        ErrorCode errorCode = errorResult.getErrorCode();
+        if (errorCode != null && errorCode.getCode().equals(errorResult.getCode())) {
+            return errorCodeRegistry.json(errorCode, errorResult.getMessage());
+        }
+        return ErrorCodeRegistry.json(errorResult.getCode(), errorResult.getMessage());
+    }
+}
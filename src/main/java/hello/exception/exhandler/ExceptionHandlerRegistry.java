@@ -0,0 +1,38 @@
+package hello.exception.exhandler;
+
+import hello.exception.WebServerCustomizer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.ErrorPage;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+/*
+실제로 등록된 ErrorPage 목록 (ErrorPathWarmUp 이 워밍업할 오류 화면 경로)
+- WebServerCustomizer 가 빈으로 등록되어 있으면 그 목록 (/error-page/404, /error-page/500)
+- 아니면 스프링 부트 기본값인 /error 하나 (모든 상태 코드, 예외 --> BasicErrorController)
+  지금은 WebServerCustomizer 의 @Component 가 주석 처리되어 있으므로 이쪽이다.
+
+참고
+- 예전에는 시작할 때 클래스패스를 훑어서 예외 타입마다 @ExceptionHandler 매칭 캐시를 미리 채웠지만 뺐다.
+  ColdStartBenchmark 로 재 보니 첫 오류 응답이 빨라지지 않았다. (순서 효과와 구분되지 않는 차이)
+  첫 오류 지연은 ErrorPathWarmUp 이 실제 요청으로 모든 오류 경로를 태워서 줄인다.
+ */
+@Component
+public class ExceptionHandlerRegistry {
+
+    private final List<ErrorPage> errorPages;
+
+    public ExceptionHandlerRegistry(ObjectProvider<WebServerCustomizer> webServerCustomizer,
+                                    @Value("${server.error.path:/error}") String errorPath) {
+        this.errorPages = webServerCustomizer.getIfAvailable() != null
+                ? List.of(WebServerCustomizer.errorPages())
+                : List.of(new ErrorPage(errorPath));
+    }
+
+    public List<ErrorPage> getErrorPages() {
+        return errorPages;
+    }
+}
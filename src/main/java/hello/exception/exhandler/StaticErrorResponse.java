@@ -0,0 +1,84 @@
+package hello.exception.exhandler;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+
+/*
+미리 만들어둔 최소 오류 응답
+- 뷰 템플릿 렌더링, JSON 직렬화, WAS 의 ERROR 재요청을 모두 거치지 않는다.
+- 상태 코드마다 body 를 한 번만 만들어 두고 그대로 내보낸다.
+- 컨트롤러, @ExceptionHandler 에서 돌려줄 ResponseEntity 도 상태 코드마다 미리 만들어 둔다.
+  (헤더는 읽기 전용이므로 여러 요청이 같이 써도 된다. body 는 ByteArrayHttpMessageConverter 가 그대로 쓴다.)
+ */
+public final class StaticErrorResponse {
+
+    private static final String CONTENT_TYPE = "application/json";
+    private static final byte[][] BODIES = new byte[600][];
+    private static final ResponseEntity<?>[] ENTITIES = new ResponseEntity<?>[BODIES.length];
+
+    static {
+        for (int status = 400; status < BODIES.length; status++) {
+            BODIES[status] = ("{\"status\":" + status + "}").getBytes(StandardCharsets.UTF_8);
+            ENTITIES[status] = ResponseEntity.status(status)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(BODIES[status].length)
+                    .body(BODIES[status]);
+        }
+    }
+
+    private StaticErrorResponse() {
+    }
+
+    public static byte[] body(int status) {
+        if (status < 400 || status >= BODIES.length) {
+            return BODIES[HttpServletResponse.SC_INTERNAL_SERVER_ERROR];
+        }
+        return BODIES[status];
+    }
+
+    public static ResponseEntity<?> entity(int status) {
+        if (status < 400 || status >= ENTITIES.length) {
+            return ENTITIES[HttpServletResponse.SC_INTERNAL_SERVER_ERROR];
+        }
+        return ENTITIES[status];
+    }
+
+    /**
+     * 아직 커밋되지 않은 response 를 비우고 최소 응답을 쓴다.
+     * reset() 을 하므로 앞에서 getWriter() 를 썼더라도 getOutputStream() 을 쓸 수 있다.
+     */
+    public static void write(HttpServletResponse response, int status) throws IOException {
+        write(response, status, null, null);
+    }
+
+    /**
+     * header 가 null 이 아니면 응답 헤더 하나를 더 붙인다. (reset() 뒤에 붙여야 남는다.)
+     */
+    public static void write(HttpServletResponse response, int status, String header, String value) throws IOException {
+        write(response, status, header, value, body(status));
+    }
+
+    /**
+     * 미리 만든 다른 body (예: ErrorCodeRegistry 의 {"code","message"}) 를 같은 방식으로 쓴다.
+     */
+    public static void write(HttpServletResponse response, int status, byte[] body) throws IOException {
+        write(response, status, null, null, body);
+    }
+
+    private static void write(HttpServletResponse response, int status, String header, String value, byte[] body) throws IOException {
+        response.reset();
+        response.setStatus(status);
+        if (header != null) {
+            response.setHeader(header, value);
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+    }
+}
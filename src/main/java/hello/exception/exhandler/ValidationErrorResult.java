@@ -0,0 +1,35 @@
+package hello.exception.exhandler;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+입력 값 오류 응답
+- ErrorResult(code, message) 에 필드별 오류 목록을 더한 것
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ValidationErrorResult extends ErrorResult {
+
+    private List<FieldErrorResult> errors;
+
+    public ValidationErrorResult(ErrorCode errorCode, String message, List<FieldErrorResult> errors) {
+        super(errorCode.getCode(), message);
+        setErrorCode(errorCode);
+        this.errors = errors;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class FieldErrorResult {
+        private String field;
+        private Object rejectedValue;
+        private String message;
+    }
+}
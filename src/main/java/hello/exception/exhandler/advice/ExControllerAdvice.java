@@ -1,14 +1,21 @@
 package hello.exception.exhandler.advice;
 
 import hello.exception.exception.UserException;
-import hello.exception.exhandler.ErrorResult;
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.StaticErrorResponse;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.servlet.http.HttpServletRequest;
+
 
 /*
 
@@ -32,32 +39,57 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
  */
 
 @Slf4j
+@RequiredArgsConstructor
 @RestControllerAdvice(basePackages = "hello.exception.api")
 public class ExControllerAdvice {
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    private final ErrorLogGovernor errorLogGovernor;
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MemoryPressureMonitor memoryPressureMonitor;
+
+    /*
+    오류 코드, HTTP 상태 코드, 기본 메시지는 ErrorCodeRegistry 에서 가져온다. (예외 타입 -> ErrorCode)
+    상태 코드가 ErrorCode 를 따르므로 @ResponseStatus 대신 ResponseEntity 로 응답한다.
+    메모리가 부족하면 ErrorResult 를 만들지 않고 미리 만들어 둔 최소 응답(StaticErrorResponse)을 돌려준다.
+     */
     @ExceptionHandler   // 예외 클래스를 생략하면 파라미터 타입을 따른다.
     //@ExceptionHandler(IllegalArgumentException.class)
-    public ErrorResult illegalExHandler(IllegalArgumentException e) {
-        log.error("[exceptionHandler] ex", e);
-        return new ErrorResult("BAD", e.getMessage());
+    public ResponseEntity<?> illegalExHandler(IllegalArgumentException e, HttpServletRequest request) {
+        return errorResponse(e, request, e.getMessage());
     }
 
     @ExceptionHandler
-    public ResponseEntity<ErrorResult> userExHandler(UserException e) {
-        log.error("[exceptionHandler] ex", e);
-        ErrorResult errorResult = new ErrorResult("USER-EX", e.getMessage());
-        return new ResponseEntity<>(errorResult, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<?> userExHandler(UserException e, HttpServletRequest request) {
+        return errorResponse(e, request, e.getMessage());
     }
 
     // 모든 예외를 처리할 수 있는 메서드
     // 아래 RuntimeException("잘못된 사용자") 예외가 발생하면, illegalExhandler,userExHandler 모두 매칭이 안되므로
     // 이 핸들러가 resolve 하게 된다.
-    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    // 입력 값 오류(타입 불일치, 파라미터 누락, 검증 실패)는 ValidationControllerAdvice 가 먼저 400 으로 처리한다.
+    // 예외 메시지는 내보내지 않고 코드의 기본 메시지("내부 오류")로 응답한다.
     @ExceptionHandler
-    public ErrorResult exHandler(Exception e) {
-        log.error("[exceptionHandler] ex", e);
-        return new ErrorResult("EX", "내부 오류");
+    public ResponseEntity<?> exHandler(Exception e, HttpServletRequest request) {
+        return errorResponse(e, request, null);
+    }
+
+    private ResponseEntity<?> errorResponse(Exception e, HttpServletRequest request, String message) {
+        ErrorCode errorCode = errorCodeRegistry.codeOf(e);
+        logError(e, request);
+        errorCodeRegistry.count(errorCode);
+        errorJournal.record(request, e, errorCode);
+        if (memoryPressureMonitor.isUnderPressure()) {
+            return StaticErrorResponse.entity(errorCode.getStatus().value());
+        }
+        return new ResponseEntity<>(errorCodeRegistry.result(errorCode, message), errorCode.getStatus());
+    }
+
+    // 오류가 폭주하면 ErrorLogGovernor 가 요약 로그와 표본으로 바꾼다. (스택 트레이스 렌더링도 하지 않는다.)
+    private void logError(Exception e, HttpServletRequest request) {
+        if (errorLogGovernor.verbose(LogCategory.CONTROLLER_ADVICE, request, e)) {
+            log.error("[exceptionHandler] ex", e);
+        }
     }
 
     // 복수의 예외를 지정할 수 있다.
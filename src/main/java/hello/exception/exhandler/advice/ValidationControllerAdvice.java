@@ -0,0 +1,162 @@
+package hello.exception.exhandler.advice;
+
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.StaticErrorResponse;
+import hello.exception.exhandler.ValidationErrorResult;
+import hello.exception.exhandler.ValidationErrorResult.FieldErrorResult;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/*
+입력 값 오류 전용 처리
+- 잘못된 입력(타입 불일치, 필수 파라미터 누락, Bean Validation 실패)은 가장 흔한 오류다.
+- 이 advice 가 없으면
+    - ExControllerAdvice 의 exHandler(Exception) 가 먼저 잡아서 500 "내부 오류" 로 응답한다. (입력 오류인데 500)
+    - advice 가 없는 컨트롤러라면 DefaultHandlerExceptionResolver -> sendError(400) -> WAS 가 /error 로 다시 호출하는 흐름을 탄다.
+- 여기서 한 번의 디스패치로 400 ValidationErrorResult 를 만든다. 필드별 오류를 함께 내려준다.
+- @Order(HIGHEST_PRECEDENCE) 로 ExControllerAdvice 보다 먼저 검사한다.
+  (ExceptionHandlerExceptionResolver 는 advice 를 순서대로 보고, 처리할 수 있는 첫 advice 를 사용한다.)
+- 메모리가 부족하면 필드별 오류를 만들지 않고 미리 만들어 둔 최소 응답(StaticErrorResponse)을 돌려준다.
+
+메시지 캐시
+- 타입 불일치, 파라미터 누락 메시지는 (파라미터 이름, 타입) 만으로 정해진다. 한 번 만든 문자열을 재사용한다.
+- Bean Validation 메시지는 Hibernate Validator 가 제약 메타데이터와 메시지 보간 결과를 캐시하므로 defaultMessage 를 그대로 쓴다.
+ */
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@RestControllerAdvice(basePackages = "hello.exception.api")
+public class ValidationControllerAdvice {
+
+    private static final int MAX_CACHED_MESSAGES = 1024;
+
+    private final Map<String, String> messages = new ConcurrentHashMap<>();
+    private final ErrorLogGovernor errorLogGovernor;
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MemoryPressureMonitor memoryPressureMonitor;
+
+    @ExceptionHandler
+    public ResponseEntity<?> typeMismatchHandler(MethodArgumentTypeMismatchException e, HttpServletRequest request) {
+        if (memoryPressureMonitor.isUnderPressure()) {
+            return staticResponse(request, e);
+        }
+        String type = e.getRequiredType() != null ? e.getRequiredType().getSimpleName() : "?";
+        String message = typeMismatchMessage(e.getName(), type);
+        return result(request, e, new FieldErrorResult(e.getName(), e.getValue(), message));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<?> missingParameterHandler(MissingServletRequestParameterException e, HttpServletRequest request) {
+        if (memoryPressureMonitor.isUnderPressure()) {
+            return staticResponse(request, e);
+        }
+        String key = "missing:" + e.getParameterName() + ':' + e.getParameterType();
+        String message = messages.get(key);
+        if (message == null) {
+            message = cache(key, e.getParameterName() + " 파라미터(" + e.getParameterType() + ")는 필수입니다");
+        }
+        return result(request, e, new FieldErrorResult(e.getParameterName(), null, message));
+    }
+
+    // @ModelAttribute 바인딩, 검증 실패. MethodArgumentNotValidException(@RequestBody)도 BindException 의 자식이다.
+    @ExceptionHandler
+    public ResponseEntity<?> bindHandler(BindException e, HttpServletRequest request) {
+        if (memoryPressureMonitor.isUnderPressure()) {
+            return staticResponse(request, e);
+        }
+        List<FieldErrorResult> errors = new ArrayList<>(e.getErrorCount());
+        for (FieldError fieldError : e.getFieldErrors()) {
+            String message;
+            if (fieldError.isBindingFailure()) {
+                Class<?> type = e.getFieldType(fieldError.getField());
+                message = typeMismatchMessage(fieldError.getField(), type != null ? type.getSimpleName() : "?");
+            } else {
+                message = fieldError.getDefaultMessage();
+            }
+            errors.add(new FieldErrorResult(fieldError.getField(), fieldError.getRejectedValue(), message));
+        }
+        for (ObjectError globalError : e.getGlobalErrors()) {
+            errors.add(new FieldErrorResult(globalError.getObjectName(), null, globalError.getDefaultMessage()));
+        }
+        return result(request, e, errors);
+    }
+
+    // @Validated 컨트롤러의 메서드 파라미터 검증 실패
+    @ExceptionHandler
+    public ResponseEntity<?> constraintViolationHandler(ConstraintViolationException e, HttpServletRequest request) {
+        if (memoryPressureMonitor.isUnderPressure()) {
+            return staticResponse(request, e);
+        }
+        List<FieldErrorResult> errors = new ArrayList<>(e.getConstraintViolations().size());
+        for (ConstraintViolation<?> violation : e.getConstraintViolations()) {
+            errors.add(new FieldErrorResult(violation.getPropertyPath().toString(),
+                    violation.getInvalidValue(), violation.getMessage()));
+        }
+        return result(request, e, errors);
+    }
+
+    private ResponseEntity<?> result(HttpServletRequest request, Exception e, FieldErrorResult error) {
+        List<FieldErrorResult> errors = new ArrayList<>(1);
+        errors.add(error);
+        return result(request, e, errors);
+    }
+
+    // 입력 오류는 클라이언트 잘못이므로 스택 트레이스 없이 한 줄만 남긴다.
+    private ResponseEntity<?> result(HttpServletRequest request, Exception e, List<FieldErrorResult> errors) {
+        errorCodeRegistry.count(ErrorCode.BAD_INPUT);
+        errorJournal.record(request, e, ErrorCode.BAD_INPUT);
+        if (errorLogGovernor.verbose(LogCategory.VALIDATION, request, e)) {
+            log.info("[validation] {} errors={}", e.getClass().getSimpleName(), errors.size());
+        }
+        return ResponseEntity.badRequest()
+                .body(new ValidationErrorResult(ErrorCode.BAD_INPUT, errorCodeRegistry.message(ErrorCode.BAD_INPUT), errors));
+    }
+
+    private ResponseEntity<?> staticResponse(HttpServletRequest request, Exception e) {
+        errorCodeRegistry.count(ErrorCode.BAD_INPUT);
+        errorJournal.record(request, e, ErrorCode.BAD_INPUT);
+        return StaticErrorResponse.entity(ErrorCode.BAD_INPUT.getStatus().value());
+    }
+
+    private String typeMismatchMessage(String name, String type) {
+        String key = "type:" + name + ':' + type;
+        String message = messages.get(key);
+        if (message == null) {
+            message = cache(key, name + " 은(는) " + type + " 형식이어야 합니다");
+        }
+        return message;
+    }
+
+    // 캐시가 가득 차면 더 넣지 않는다. (임의의 파라미터 이름으로 메모리를 늘리지 못하게)
+    private String cache(String key, String message) {
+        if (messages.size() < MAX_CACHED_MESSAGES) {
+            messages.putIfAbsent(key, message);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,154 @@
+package hello.exception.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/*
+오류 응답 예산 (error budget)
+- sendError 나 WAS 까지 올라간 예외는 WAS 의 ERROR 재요청을 일으킨다. 즉 요청 하나에 두 번 일을 한다.
+- 클라이언트(remote address) 별, 경로(route) 별로 토큰 버킷을 두고, 오류 응답 하나에 토큰 하나씩 소비한다.
+- 토큰이 바닥나면 ErrorBudgetFilter 가 재요청 없이 미리 만들어둔 최소 응답을 내보낸다.
+- 두 버킷에 모두 토큰이 있을 때만 소비한다. 경로 버킷이 바닥났다고 해서 클라이언트 토큰을 쓰지 않는다.
+  (다른 클라이언트들이 경로 하나를 두드리는 동안 얌전한 클라이언트의 예산까지 깎이지 않도록)
+
+메모리 제한
+- 버킷 수는 종류(클라이언트, 경로)마다 maxBuckets 개를 넘지 않는다.
+  맵에 넣기 전에 개수를 먼저 예약(AtomicInteger)하므로 여러 스레드가 동시에 넣어도 넘지 않는다.
+- 넘치면 먼저 가득 찬(= 새 버킷과 같은) 버킷을 지우고, 그래도 넘치면 임의의 버킷을 지운다.
+- 다른 스레드가 정리 중이라 자리를 얻지 못하면 공용 overflow 버킷 하나를 같이 쓴다.
+  (새 키가 쏟아지는 동안에는 그 키들이 예산 하나를 나눠 쓰게 되므로, 더 엄격해지는 쪽으로 틀린다.)
+ */
+@Slf4j
+@Component
+public class ErrorBudget {
+
+    private final Buckets clientBuckets;
+    private final Buckets routeBuckets;
+    private final int maxBuckets;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public ErrorBudget(@Value("${error.budget.client.permits-per-second:20}") double clientPermitsPerSecond,
+                       @Value("${error.budget.client.burst:40}") int clientBurst,
+                       @Value("${error.budget.route.permits-per-second:200}") double routePermitsPerSecond,
+                       @Value("${error.budget.route.burst:400}") int routeBurst,
+                       @Value("${error.budget.max-buckets:10000}") int maxBuckets) {
+        this.clientBuckets = new Buckets(clientPermitsPerSecond, clientBurst);
+        this.routeBuckets = new Buckets(routePermitsPerSecond, routeBurst);
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * 오류 응답 하나에 대한 예산을 소비한다.
+     * @return 예산이 남아 있으면 true (정상적인 오류 처리 흐름을 타도 된다.)
+     */
+    public boolean tryConsume(String clientKey, String routeKey) {
+        TokenBucket route = bucket(routeBuckets, routeKey);
+        TokenBucket client = bucket(clientBuckets, clientKey);
+        long now = System.nanoTime();   // 새로 만든 버킷의 시작 시각보다 앞서지 않도록 버킷을 얻은 뒤에 잰다.
+        if (!route.hasToken(now)) {
+            return false;
+        }
+        if (!client.tryAcquire(now)) {
+            return false;
+        }
+        if (!route.tryAcquire(now)) {
+            client.release();   // 확인한 사이에 다른 스레드가 경로 토큰을 가져갔다.
+            return false;
+        }
+        return true;
+    }
+
+    int size() {
+        return clientBuckets.map.size() + routeBuckets.map.size();
+    }
+
+    // 종류(클라이언트, 경로)별 버킷 수 중 큰 쪽. maxBuckets 를 넘지 않아야 한다.
+    public int maxSize() {
+        return Math.max(clientBuckets.map.size(), routeBuckets.map.size());
+    }
+
+    private TokenBucket bucket(Buckets buckets, String key) {
+        TokenBucket bucket = buckets.map.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (!buckets.reserve(maxBuckets)) {
+            evict(buckets);
+            if (!buckets.reserve(maxBuckets)) {
+                return buckets.overflow;
+            }
+        }
+        TokenBucket created = new TokenBucket(buckets.permitsPerSecond, buckets.burst);
+        TokenBucket existing = buckets.map.putIfAbsent(key, created);
+        if (existing != null) {
+            buckets.count.decrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    // 다른 스레드가 이미 정리 중이면 기다리지 않는다. (호출한 쪽은 overflow 버킷을 쓴다.)
+    private void evict(Buckets buckets) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            int target = maxBuckets * 3 / 4;
+            for (Map.Entry<String, TokenBucket> entry : buckets.map.entrySet()) {
+                if (entry.getValue().isFull(now)) {
+                    buckets.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            Iterator<Map.Entry<String, TokenBucket>> entries = buckets.map.entrySet().iterator();
+            while (buckets.count.get() > target && entries.hasNext()) {
+                Map.Entry<String, TokenBucket> entry = entries.next();
+                buckets.remove(entry.getKey(), entry.getValue());
+            }
+            log.debug("error budget buckets evicted, size={}", buckets.map.size());
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static class Buckets {
+
+        private final Map<String, TokenBucket> map = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final double permitsPerSecond;
+        private final int burst;
+        private final TokenBucket overflow;
+
+        Buckets(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.overflow = new TokenBucket(permitsPerSecond, burst);
+        }
+
+        boolean reserve(int max) {
+            while (true) {
+                int current = count.get();
+                if (current >= max) {
+                    return false;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void remove(String key, TokenBucket bucket) {
+            if (map.remove(key, bucket)) {
+                count.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package hello.exception.filter;
+
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.StaticErrorResponse;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import hello.exception.warmup.WarmUpRequests;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+
+/*
+오류 응답 예산 필터
+- LogFilter 보다 앞(order 0)에서, REQUEST 디스패치에만 적용한다. (ERROR 재요청은 다시 세지 않는다.)
+- response 를 감싸서 sendError 호출을 가로챈다.
+    - 예산이 남아 있으면 원래대로 sendError 를 호출한다. --> WAS 가 오류 페이지로 재요청
+    - 예산이 바닥나면 sendError 를 호출하지 않고 최소 응답을 직접 쓴다. --> 재요청, 템플릿 렌더링 없음
+- WAS 까지 올라가는 예외도 같은 방식으로 처리한다.
+  예산이 바닥났으면 예외를 여기서 삼키고 500 최소 응답을 쓴다.
+- 시작 시 워밍업 요청(WarmUpRequests)은 예산을 소비하지 않는다.
+- 예산이 바닥나서 쓴 최소 응답에는 "X-Error-Budget: exhausted" 헤더를 붙인다.
+  (부하 테스트가 예산 때문에 잘린 응답을 따로 셀 수 있도록. keep-alive, 메모리 부족으로 쓴 응답에는 붙이지 않는다.)
+- 재요청 없이 직접 응답할 때도 ErrorPageController 가 하던 기록은 남긴다.
+    - 로그: ErrorLogGovernor(ERROR_PAGE) 가 허락할 때만 남긴다.
+      스택 트레이스는 keep-alive 모드에서만 남긴다. 예산 초과, 메모리 부족일 때는 예외 클래스 이름 한 줄만 남긴다.
+    - 오류 코드 집계(ErrorCodeRegistry), 오류 기록(ErrorJournal): 앞에서 리졸버, advice 가 이미 남겼으면 건너뛴다.
+
+keep-alive 모드 (error.response.keep-alive=true)
+- 예산과 상관없이 모든 sendError, WAS 까지 올라가는 예외를 ERROR 재요청 없이 바로 쓴다.
+- body 는 ErrorCodeRegistry 가 미리 만들어 둔 {"code","message"} 이고 Content-Length 를 정확히 붙인다.
+  chunked 인코딩도, ERROR 재요청도 없다.
+    - sendError(sc, msg): 상태 코드의 오류 코드와 msg (없으면 오류 코드의 기본 메시지)
+    - 예외: 500, 예외의 오류 코드와 기본 메시지 (예외 메시지는 내보내지 않는다.)
+- 대신 오류 화면(HTML)은 내려가지 않는다. API, 내부 서비스용 서버에서 켠다.
+- 연결 재사용은 h2c 프로필(application-h2c.properties)과 함께 켜야 보장된다.
+  HTTP/1.1 에서는 톰캣이 400, 408, 411, 413, 414, 500, 501, 503 응답 뒤에 body 와 상관없이 연결을 끊는다.
+  (Http11Processor.statusDropsConnection, 설정으로 끌 수 없다.) HTTP/2 에서는 스트림만 끝나고 연결은 남는다.
+
+메모리 부족 (MemoryPressureMonitor)
+- 메모리가 부족한 동안에는 모드와 상관없이 재요청 없이 바로 쓰고, body 도 StaticErrorResponse({"status":...})만 쓴다.
+  (오류 화면 렌더링, ERROR 재요청, 메시지 body 가 메모리를 더 쓰지 않도록)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ErrorBudgetFilter implements Filter {
+
+    public static final String BUDGET_HEADER = "X-Error-Budget";
+    public static final String EXHAUSTED = "exhausted";
+
+    private final ErrorBudget errorBudget;
+    private final WarmUpRequests warmUpRequests;
+    private final boolean keepAlive;
+    private final MemoryPressureMonitor memoryPressureMonitor;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final ErrorJournal errorJournal;
+    private final ErrorLogGovernor errorLogGovernor;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        if (warmUpRequests.isWarmUp(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        BudgetedResponse budgetedResponse = new BudgetedResponse(httpRequest, httpResponse);
+
+        try {
+            chain.doFilter(request, budgetedResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (httpResponse.isCommitted()) {
+                throw e;
+            }
+            if (!directOnly() && budgetedResponse.tryConsume()) {
+                throw e;
+            }
+            writeDirect(httpRequest, httpResponse, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, null, e);
+        }
+    }
+
+    // ERROR 재요청 없이 직접 응답한다. 기록을 먼저 남기고 쓴다.
+    private void writeDirect(HttpServletRequest request, HttpServletResponse response, int status, String message,
+                             Throwable ex) throws IOException {
+        ErrorCode errorCode = ex != null ? errorCodeRegistry.codeOf(ex) : errorCodeRegistry.codeOf(status);
+        boolean underPressure = memoryPressureMonitor.isUnderPressure();
+        if (errorLogGovernor.verbose(LogCategory.ERROR_PAGE, request, ex)) {
+            if (ex == null) {
+                log.info("[{}] error {} answered without error dispatch", request.getRequestURI(), status);
+            } else if (keepAlive && !underPressure) {
+                log.error("[{}] uncaught exception answered without error dispatch", request.getRequestURI(), ex);
+            } else {
+                // 예산 초과, 메모리 부족: 스택 트레이스 없이 한 줄만 남긴다.
+                log.warn("[{}] uncaught {} answered without error dispatch", request.getRequestURI(), ex.getClass().getName());
+            }
+        }
+        if (!errorJournal.isRecorded(request)) {
+            errorCodeRegistry.count(errorCode);
+            errorJournal.record(request, routeKey(request), ex != null ? ex.getClass() : null, errorCode, status);
+        }
+
+        if (underPressure) {
+            StaticErrorResponse.write(response, status);
+        } else if (keepAlive) {
+            String body = message != null ? message : errorCodeRegistry.message(errorCode);
+            StaticErrorResponse.write(response, status, errorCodeRegistry.json(errorCode, body));
+        } else {
+            StaticErrorResponse.write(response, status, BUDGET_HEADER, EXHAUSTED);
+        }
+    }
+
+    private boolean directOnly() {
+        return keepAlive || memoryPressureMonitor.isUnderPressure();
+    }
+
+    // /api/members/{id} 처럼 매핑된 패턴이 있으면 패턴 기준으로 묶는다. (URI 마다 버킷이 생기지 않도록)
+    private static String routeKey(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    private class BudgetedResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        BudgetedResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            if (!directOnly() && tryConsume()) {
+                super.sendError(sc, msg);
+            } else {
+                writeDirect(request, (HttpServletResponse) getResponse(), sc, msg, null);
+            }
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            if (!directOnly() && tryConsume()) {
+                super.sendError(sc);
+            } else {
+                writeDirect(request, (HttpServletResponse) getResponse(), sc, null, null);
+            }
+        }
+
+        boolean tryConsume() {
+            boolean allowed = errorBudget.tryConsume(request.getRemoteAddr(), routeKey(request));
+            if (!allowed) {
+                log.debug("error budget exhausted [{}][{}]", request.getRemoteAddr(), request.getRequestURI());
+            }
+            return allowed;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package hello.exception.filter;
 
+import hello.exception.trace.RequestTrace;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.servlet.*;
@@ -20,7 +21,9 @@ public class LogFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         String requestURI = httpRequest.getRequestURI();
 
-        String uuid = UUID.randomUUID().toString();
+        // TraceFilter 가 앞에 있으면 trace id 를 사용한다. REQUEST, ERROR 디스패치 로그가 같은 id 로 묶인다.
+        RequestTrace trace = RequestTrace.of(request);
+        String uuid = trace != null ? trace.getTraceId() : UUID.randomUUID().toString();
 
         try {
             log.info("REQUEST [{}][{}][{}]", uuid, request.getDispatcherType(), requestURI);
@@ -0,0 +1,65 @@
+package hello.exception.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+GCRA(Generic Cell Rate Algorithm) 방식의 토큰 버킷
+- "버킷이 다시 가득 차는 이론적 시각(theoretical arrival time)" 하나만 AtomicLong 으로 들고 있다.
+- 토큰 수와 마지막 리필 시각을 따로 들고 있지 않으므로 CAS 한 번으로 갱신할 수 있다. (lock-free)
+- 토큰 하나를 쓸 때마다 이론적 시각이 emissionInterval 만큼 뒤로 밀린다.
+  이론적 시각이 현재보다 burst 만큼 앞서 있으면 토큰이 바닥난 것이다.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System.nanoTime());
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, long now) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond > 0, burst >= 1 이어야 한다.");
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.toleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long now) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = tat - now > 0 ? tat : now;  // nanoTime 은 음수일 수 있으므로 뺄셈으로 비교
+            if (base - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // 토큰이 남아 있는지만 본다. (소비하지 않는다.)
+    boolean hasToken(long now) {
+        long tat = theoreticalArrival.get();
+        long base = tat - now > 0 ? tat : now;
+        return base - now <= toleranceNanos;
+    }
+
+    // tryAcquire 로 가져간 토큰 하나를 돌려준다.
+    void release() {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos);
+    }
+
+    // 버킷이 가득 차 있는 상태라면 새로 만든 버킷과 다를 것이 없으므로 버려도 된다.
+    boolean isFull(long now) {
+        return theoreticalArrival.get() - now <= 0;
+    }
+}
@@ -0,0 +1,37 @@
+package hello.exception.interceptor;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+
+/*
+/debug 엔드포인트 보호
+- 느린 요청 보관소, 오류 기록은 URI, 예외 메시지 같은 내부 정보를 담고 있다.
+- debug.endpoints.token 이 비어 있으면(기본값) 엔드포인트가 없는 것처럼 404 를 돌려준다.
+- 토큰이 설정되어 있으면 X-Debug-Token 헤더가 같은 요청만 통과시킨다. 틀려도 404 다. (엔드포인트가 있는지 드러내지 않는다.)
+- 비교는 MessageDigest.isEqual 로 한다. (비교에 걸린 시간으로 토큰을 추측하지 못하도록)
+ */
+public class DebugEndpointInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Debug-Token";
+
+    private final byte[] token;
+
+    public DebugEndpointInterceptor(String token) {
+        this.token = token != null ? token.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        String header = request.getHeader(HEADER);
+        if (token.length > 0 && header != null && MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package hello.exception.interceptor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/*
+최근 응답 시간의 p99 를 대략 추정하는 히스토그램
+- 2의 거듭제곱 경계를 4등분한 버킷에 응답 시간(ns)을 센다. (오차 25% 이내, 버킷 수 고정)
+- DECAY_INTERVAL 건마다, 그리고 SlowRequestReservoir 의 시간 창이 바뀔 때마다 모든 버킷을 절반으로 줄여서
+  오래된 값의 영향을 줄인다. (rolling)
+- p99 는 RECOMPUTE_INTERVAL 건마다 다시 계산해서 volatile 필드에 둔다. 읽는 쪽은 필드만 읽는다.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    private static final long RECOMPUTE_INTERVAL = 1_000;
+    private static final long DECAY_INTERVAL = 50_000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long p99Nanos = Long.MAX_VALUE;    // 표본이 모이기 전에는 아무것도 느리다고 보지 않는다.
+
+    void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        long n = recorded.incrementAndGet();
+        if (n % DECAY_INTERVAL == 0) {
+            decay();
+        }
+        if (n % RECOMPUTE_INTERVAL == 0) {
+            p99Nanos = percentile(0.99);
+        }
+    }
+
+    long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    void decay() {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count;
+            do {
+                count = counts.get(i);
+            } while (count > 0 && !counts.compareAndSet(i, count, count / 2));
+        }
+    }
+
+    private long percentile(double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        long target = (long) Math.ceil(total * quantile);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target && cumulative > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) ((nanos >>> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(exponent * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    static long upperBoundOf(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        if (exponent < 2) {
+            return bucket + 1L;
+        }
+        if (exponent >= 62) {
+            return Long.MAX_VALUE;
+        }
+        long base = 1L << exponent;
+        return base + (base / SUB_BUCKETS) * (sub + 1);
+    }
+}
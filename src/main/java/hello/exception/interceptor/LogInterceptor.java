@@ -1,6 +1,10 @@
 package hello.exception.interceptor;
 
+import hello.exception.trace.RequestTrace;
+import hello.exception.trace.Stage;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
@@ -12,20 +16,37 @@ import java.util.UUID;
 /*
 데이터 전파 순서
 - WAS -> 필터 -> 서블릿 -> 인터셉터 -> 컴트롤러
+
+구간 기록 (hello.exception.trace)
+- TraceFilter 가 만든 RequestTrace 가 있으면 그 trace id 를 로그 id 로 사용한다. (LogFilter 로그와 연결된다.)
+- preHandle ~ postHandle: CONTROLLER, postHandle ~ afterCompletion: VIEW_RENDER
+- 예외가 난 경우 RESOLVER 구간은 TraceHandlerExceptionResolver 가 시작하고 afterCompletion 에서 끝낸다.
+
+capture 모드 (SlowRequestReservoir)
+- afterCompletion 에서 응답 시간을 기록하고, 오류 응답이거나 p99 보다 느린 요청만 보관소에 남긴다.
+- 보관소 내용은 /debug/slow-requests 로 확인한다. (debug.endpoints.token 을 설정하고 X-Debug-Token 헤더로 보낸다.)
  */
 @Slf4j
+@RequiredArgsConstructor
 public class LogInterceptor implements HandlerInterceptor {
 
     public static final String LOG_ID = "logId";
+    private static final String START_NANOS = LogInterceptor.class.getName() + ".START_NANOS";
+    private static final int MAX_MESSAGE_LENGTH = 200;
+
+    private final SlowRequestReservoir slowRequestReservoir;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
 
         String requestURI = request.getRequestURI();
 
-        String uuid = UUID.randomUUID().toString();
+        RequestTrace trace = RequestTrace.of(request);
+        String uuid = trace != null ? trace.getTraceId() : UUID.randomUUID().toString();
 
         request.setAttribute(LOG_ID, uuid);
+        request.setAttribute(START_NANOS, System.nanoTime());
+        RequestTrace.begin(request, Stage.CONTROLLER);
 
         log.info("REQUEST  [{}][{}][{}][{}]", uuid, request.getDispatcherType(), requestURI, handler);
 
@@ -35,6 +56,8 @@ public class LogInterceptor implements HandlerInterceptor {
     @Override
     public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
                            ModelAndView modelAndView) {
+        RequestTrace.end(request, Stage.CONTROLLER);
+        RequestTrace.begin(request, Stage.VIEW_RENDER);
         log.info("postHandle [{}]", modelAndView);
     }
 
@@ -42,6 +65,10 @@ public class LogInterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
                                 Exception ex) {
 
+        RequestTrace.end(request, Stage.VIEW_RENDER);
+        RequestTrace.end(request, Stage.RESOLVER);
+        RequestTrace.end(request, Stage.CONTROLLER);
+
         String requestURI = request.getRequestURI();
         String logId = (String) request.getAttribute(LOG_ID);
 
@@ -50,6 +77,45 @@ public class LogInterceptor implements HandlerInterceptor {
         if (ex != null) {
             log.error("afterCompletion error!!", ex);
         }
+
+        capture(request, response, handler, ex);
+    }
+
+    private void capture(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long start = (Long) request.getAttribute(START_NANOS);
+        if (start == null) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        slowRequestReservoir.recordLatency(duration);
+
+        // ExceptionResolver 가 해결한 예외는 afterCompletion 의 ex 로 넘어오지 않는다.
+        Exception exception = ex != null ? ex : (Exception) request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        boolean error = exception != null || response.getStatus() >= 400;
+        boolean slow = slowRequestReservoir.isSlow(duration);
+        if (!error && !slow) {
+            return;
+        }
+
+        RequestSample sample = new RequestSample(System.currentTimeMillis(), request.getRequestURI(), String.valueOf(handler),
+                request.getDispatcherType().name(), response.getStatus(), duration, summary(exception));
+        if (error) {
+            slowRequestReservoir.captureError(sample);
+        }
+        if (slow) {
+            slowRequestReservoir.captureSlow(sample);
+        }
+    }
+
+    private String summary(Exception exception) {
+        if (exception == null) {
+            return null;
+        }
+        String message = exception.getMessage();
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH) + "...";
+        }
+        return exception.getClass().getName() + ": " + message;
     }
 
 }
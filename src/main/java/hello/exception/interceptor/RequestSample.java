@@ -0,0 +1,20 @@
+package hello.exception.interceptor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/*
+SlowRequestReservoir 에 남기는 요청 하나의 요약 (불변)
+ */
+@Getter
+@AllArgsConstructor
+public class RequestSample {
+    private final long timestamp;
+    private final String uri;
+    private final String handler;
+    private final String dispatchType;
+    private final int status;
+    private final long durationNanos;
+    private final String exception;
+}
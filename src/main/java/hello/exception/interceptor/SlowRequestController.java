@@ -0,0 +1,31 @@
+package hello.exception.interceptor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/*
+SlowRequestReservoir 내용 확인용
+- DebugEndpointInterceptor 가 보호한다. (debug.endpoints.token 이 없으면 404)
+ */
+@RestController
+@RequiredArgsConstructor
+public class SlowRequestController {
+
+    private final SlowRequestReservoir slowRequestReservoir;
+
+    @GetMapping("/debug/slow-requests")
+    public Map<String, Object> slowRequests() {
+        long p99 = slowRequestReservoir.getP99Nanos();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("p99Micros", p99 == Long.MAX_VALUE ? null : p99 / 1000);
+        result.put("slowest", slowRequestReservoir.getSlowest());
+        result.put("recentErrors", slowRequestReservoir.getRecentErrors());
+        return result;
+    }
+}
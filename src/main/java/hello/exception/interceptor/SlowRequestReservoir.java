@@ -0,0 +1,174 @@
+package hello.exception.interceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+
+/*
+느린 요청, 오류 요청 보관소 (LogInterceptor 의 capture 모드)
+- 모든 응답을 로그로 남기지 않고도 드물게 느리거나 실패한 요청을 잡아두기 위한 것이다.
+- 가장 느린 요청 N 개: 고정 크기 배열. 가장 빠른 항목을 CAS 로 교체한다.
+- 최근 오류 M 개: 고정 크기 링 버퍼. 커서를 getAndIncrement 해서 자리를 잡는다.
+- 느린 요청의 기준은 최근 응답 시간의 p99 추정값(LatencyHistogram)을 따라 움직인다.
+- 배열 크기가 고정이므로 트래픽과 상관없이 메모리 사용량이 일정하다.
+
+시간 창 (request.capture.window-millis)
+- 가장 느린 요청은 시간 창마다 새 배열에 모은다. 창이 바뀌면 지금 창은 직전 창이 되고, 그 전 창은 버린다.
+- 창 안에서는 배열이 가득 찬 뒤 보관 중인 가장 빠른 항목보다 느려야 들어갈 수 있다. (floor)
+  floor 는 창마다 0 부터 다시 시작하므로, 기동 직후의 아주 느린 요청이 보관소를 영원히 차지하지 않는다.
+  창이 바뀐 뒤에는 p99 만 넘으면 다시 잡힌다.
+- 창이 바뀔 때 LatencyHistogram 도 절반으로 줄인다. (요청이 적을 때도 오래된 응답 시간의 영향이 줄어든다.)
+- 조회(getSlowest)는 직전 창과 지금 창을 합쳐서 느린 순서로 N 개를 돌려준다.
+ */
+@Component
+public class SlowRequestReservoir {
+
+    private static final int MAX_ATTEMPTS = 4;
+
+    private final int slowestSize;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final AtomicReference<Window> current;
+    private volatile Window previous;
+    private final AtomicReferenceArray<RequestSample> errors;
+    private final AtomicLong errorCursor = new AtomicLong();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Autowired
+    public SlowRequestReservoir(@Value("${request.capture.slowest-size:32}") int slowestSize,
+                                @Value("${request.capture.errors-size:128}") int errorsSize,
+                                @Value("${request.capture.window-millis:60000}") long windowMillis) {
+        this(slowestSize, errorsSize, windowMillis, System::currentTimeMillis);
+    }
+
+    SlowRequestReservoir(int slowestSize, int errorsSize, long windowMillis, LongSupplier clock) {
+        this.slowestSize = slowestSize;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.current = new AtomicReference<>(new Window(slowestSize, clock.getAsLong()));
+        this.previous = new Window(slowestSize, clock.getAsLong());
+        this.errors = new AtomicReferenceArray<>(errorsSize);
+    }
+
+    public void recordLatency(long durationNanos) {
+        histogram.record(durationNanos);
+    }
+
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= histogram.getP99Nanos() && durationNanos > window().floorNanos;
+    }
+
+    public long getP99Nanos() {
+        return histogram.getP99Nanos();
+    }
+
+    public void captureError(RequestSample sample) {
+        int index = (int) (errorCursor.getAndIncrement() % errors.length());
+        errors.set(index, sample);
+    }
+
+    public void captureSlow(RequestSample sample) {
+        Window window = window();
+        AtomicReferenceArray<RequestSample> slowest = window.slowest;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int victim = 0;
+            RequestSample victimSample = slowest.get(0);
+            for (int i = 1; i < slowest.length() && victimSample != null; i++) {
+                RequestSample current = slowest.get(i);
+                if (current == null || current.getDurationNanos() < victimSample.getDurationNanos()) {
+                    victim = i;
+                    victimSample = current;
+                }
+            }
+            if (victimSample != null && victimSample.getDurationNanos() >= sample.getDurationNanos()) {
+                return;
+            }
+            if (slowest.compareAndSet(victim, victimSample, sample)) {
+                window.updateFloor();
+                return;
+            }
+        }
+    }
+
+    // 직전 창과 지금 창을 합친 느린 순서
+    public List<RequestSample> getSlowest() {
+        Window window = window();
+        List<RequestSample> result = new ArrayList<>();
+        previous.addTo(result);
+        window.addTo(result);
+        result.sort(Comparator.comparingLong(RequestSample::getDurationNanos).reversed());
+        return result.size() > slowestSize ? new ArrayList<>(result.subList(0, slowestSize)) : result;
+    }
+
+    // 최근 순서
+    public List<RequestSample> getRecentErrors() {
+        List<RequestSample> result = new ArrayList<>();
+        long cursor = errorCursor.get();
+        for (long i = cursor - 1; i >= 0 && i >= cursor - errors.length(); i--) {
+            RequestSample sample = errors.get((int) (i % errors.length()));
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    // 창이 끝났으면 새 창으로 바꾼다. CAS 에 성공한 스레드 하나만 previous 를 바꾸고 히스토그램을 줄인다.
+    private Window window() {
+        Window window = current.get();
+        long now = clock.getAsLong();
+        if (now - window.startMillis < windowMillis) {
+            return window;
+        }
+        Window next = new Window(slowestSize, now);
+        if (current.compareAndSet(window, next)) {
+            previous = window;
+            histogram.decay();
+            return next;
+        }
+        return current.get();
+    }
+
+    private static class Window {
+
+        final AtomicReferenceArray<RequestSample> slowest;
+        final long startMillis;
+        volatile long floorNanos;   // 가득 찬 뒤 보관 중인 가장 빠른 항목의 응답 시간
+
+        Window(int size, long startMillis) {
+            this.slowest = new AtomicReferenceArray<>(size);
+            this.startMillis = startMillis;
+        }
+
+        void updateFloor() {
+            long floor = Long.MAX_VALUE;
+            for (int i = 0; i < slowest.length(); i++) {
+                RequestSample sample = slowest.get(i);
+                if (sample == null) {
+                    floorNanos = 0;
+                    return;
+                }
+                floor = Math.min(floor, sample.getDurationNanos());
+            }
+            floorNanos = floor;
+        }
+
+        void addTo(List<RequestSample> result) {
+            for (int i = 0; i < slowest.length(); i++) {
+                RequestSample sample = slowest.get(i);
+                if (sample != null) {
+                    result.add(sample);
+                }
+            }
+        }
+    }
+}
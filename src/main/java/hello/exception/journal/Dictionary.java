@@ -0,0 +1,66 @@
+package hello.exception.journal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/*
+문자열 -> 정수 id 사전 (ErrorJournal 용)
+- 0 은 "없음 또는 사전이 가득 참" 이다. 실제 id 는 1 부터 maxSize 까지 쓴다.
+- 한 번 받은 id 는 바뀌지 않는다. 이미 있는 문자열은 ConcurrentHashMap 조회 한 번으로 끝난다. (객체를 만들지 않는다.)
+- 가득 차면 더 넣지 않는다. 임의의 URI 로 사전을 키울 수 없다.
+  가득 찬 뒤의 새 문자열은 lock 없이 NONE 을 돌려준다. (임의 URI 폭주가 add 의 lock 에 줄을 서지 않는다.)
+ */
+class Dictionary {
+
+    static final int NONE = 0;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> values;
+    private volatile int next = 1;
+    private final int maxSize;
+
+    Dictionary(int maxSize) {
+        this.maxSize = maxSize;
+        this.values = new AtomicReferenceArray<>(maxSize + 1);
+    }
+
+    int idOf(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (next > maxSize) {
+            return NONE;
+        }
+        return add(value);
+    }
+
+    String valueOf(int id) {
+        return id > 0 && id < values.length() ? values.get(id) : null;
+    }
+
+    int size() {
+        return next - 1;
+    }
+
+    // 새 값을 넣는 것은 드물다. (경로 패턴, 예외 클래스 수만큼) 그래서 그냥 synchronized 로 한 번에 하나씩 넣는다.
+    private synchronized int add(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        int newId = next;
+        if (newId > maxSize) {
+            return NONE;
+        }
+        values.set(newId, value);
+        ids.put(value, newId);
+        next = newId + 1;
+        return newId;
+    }
+}
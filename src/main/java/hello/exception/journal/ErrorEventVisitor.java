@@ -0,0 +1,12 @@
+package hello.exception.journal;
+
+/*
+ErrorJournal#scan 이 기록 하나마다 호출한다.
+- codeId 는 ErrorCode#of 로 ErrorCode 로 바꿀 수 있다.
+- uriId, classId 는 ErrorJournal#uri, ErrorJournal#exceptionClassName 으로 문자열로 바꿀 수 있다. (0 은 없음 또는 사전 초과)
+ */
+@FunctionalInterface
+public interface ErrorEventVisitor {
+
+    void visit(long seq, long timestampMillis, long requestId, int uriId, int codeId, int classId, int status);
+}
@@ -0,0 +1,211 @@
+package hello.exception.journal;
+
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.trace.RequestTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*
+최근 오류 기록 (장애 후 분석용)
+- 최근 수백만 건의 오류를 힙 밖(ByteBuffer.allocateDirect) 고정 크기 링 버퍼에 남긴다.
+  기록할 때 객체를 만들지 않으므로 오류가 폭주해도 GC 부담이 늘지 않는다.
+- ExControllerAdvice, ValidationControllerAdvice, 두 HandlerExceptionResolver, ErrorPageController 가 기록한다.
+  같은 요청은 한 번만 기록한다. (resolver 가 sendError 한 뒤 ErrorPageController 로 다시 들어오는 경우)
+  기록 여부는 RequestTrace 에 표시한다. request attribute 를 새로 넣으면 요청마다 map 항목이 생긴다.
+  trace 가 없는 요청(TraceFilter 밖)만 RECORDED attribute 로 표시한다.
+
+기록 하나 (32 바이트)
+- 0: seq + 1 (커밋 표시, 음수는 쓰는 중, 0 은 한 번도 쓰지 않음)
+- 8: 시각 (epoch millis)
+- 16: 요청 id (RequestTrace 의 trace id 뒤 64비트, trace 가 없으면 0)
+- 24: URI id (경로 패턴, 없으면 요청 URI 를 사전에 넣은 id, unsigned short)
+- 26: 오류 코드 id (ErrorCode#getId, unsigned short)
+- 28: 예외 클래스 id (unsigned short)
+- 30: HTTP 상태 코드 (unsigned short)
+
+여러 스레드가 동시에 기록 (lock-free)
+- cursor.getAndIncrement() 로 seq 를 받는다.
+- 커밋 표시를 CAS 로 -(seq + 1) 로 바꿔 슬롯을 차지한 뒤 -> 나머지 필드를 쓰고 -> 커밋 표시에 seq + 1 을 release 로 쓴다.
+- 버퍼를 한 바퀴 도는 동안 앞선 쓰기가 끝나지 않으면 두 쓰기가 같은 슬롯을 쓰게 된다. (lapping)
+  CAS 덕분에 슬롯에는 한 번에 한 쓰기만 들어간다. 다른 쓰기가 쓰는 중이거나, 더 새 seq 가 이미 커밋된 슬롯이면
+  기다리지 않고 이 기록을 버리고 dropped 로 센다. 필드가 섞인 기록(torn record)은 생기지 않는다.
+- 읽는 쪽은 커밋 표시를 acquire 로 읽고, 필드를 읽은 뒤 커밋 표시를 다시 읽어서 그 사이 덮어쓰였으면 버린다. (seqlock)
+
+snapshot-and-scan
+- scan 은 시작할 때 cursor 를 읽어 두고(snapshot), 그 이전에 자리를 잡은 기록만 순서대로 방문한다.
+- 복사하지 않고 버퍼를 바로 읽는다. 읽는 동안 덮어쓰인 기록, 아직 쓰는 중인 기록은 건너뛴다.
+ */
+@Slf4j
+@Component
+public class ErrorJournal {
+
+    public static final String RECORDED = ErrorJournal.class.getName() + ".RECORDED";
+
+    static final int RECORD_SIZE = 32;
+    private static final int SEQ = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int REQUEST_ID = 16;
+    private static final int URI_ID = 24;
+    private static final int CODE_ID = 26;
+    private static final int CLASS_ID = 28;
+    private static final int STATUS = 30;
+
+    private static final int MAX_CAPACITY = 1 << 25;   // 32 바이트 x 2^25 = 1GiB (int offset 한계 안쪽)
+    private static final int MAX_CLASSES = 4096;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final boolean enabled;
+    private final int capacity;
+    private final long mask;
+    private final ByteBuffer buffer;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Dictionary uris;
+    private final Dictionary classes = new Dictionary(MAX_CLASSES);
+    private final ClassValue<Integer> classIds = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return classes.idOf(type.getName());
+        }
+    };
+
+    public ErrorJournal(@Value("${error.journal.enabled:true}") boolean enabled,
+                        @Value("${error.journal.capacity:1048576}") int capacity,
+                        @Value("${error.journal.max-uris:4096}") int maxUris) {
+        this.enabled = enabled;
+        this.capacity = enabled ? powerOfTwo(capacity) : 1;
+        this.mask = this.capacity - 1;
+        this.buffer = ByteBuffer.allocateDirect(this.capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        this.uris = new Dictionary(Math.min(maxUris, 0xFFFF));
+        if (enabled) {
+            log.info("error journal: {} records, {} KiB off-heap", this.capacity, (long) this.capacity * RECORD_SIZE / 1024);
+        }
+    }
+
+    /**
+     * 요청 처리 중 오류를 기록한다. URI 는 경로 패턴(/api/members/{id})을 우선 사용한다.
+     */
+    public void record(HttpServletRequest request, Throwable ex, ErrorCode errorCode) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        record(request, pattern != null ? pattern : request.getRequestURI(), ex != null ? ex.getClass() : null,
+                errorCode, errorCode.getStatus().value());
+    }
+
+    public void record(HttpServletRequest request, String uri, Class<?> exceptionClass, ErrorCode errorCode, int status) {
+        if (!enabled) {
+            return;
+        }
+        RequestTrace trace = RequestTrace.of(request);
+        if (trace != null) {
+            if (!trace.markJournaled()) {
+                return;
+            }
+        } else {
+            if (request.getAttribute(RECORDED) != null) {
+                return;
+            }
+            request.setAttribute(RECORDED, Boolean.TRUE);
+        }
+        append(trace != null ? trace.getTraceIdLow() : 0L, uri, exceptionClass, errorCode.getId(), status);
+    }
+
+    public boolean isRecorded(HttpServletRequest request) {
+        RequestTrace trace = RequestTrace.of(request);
+        return trace != null ? trace.isJournaled() : request.getAttribute(RECORDED) != null;
+    }
+
+    public void append(long requestId, String uri, Class<?> exceptionClass, int codeId, int status) {
+        if (!enabled) {
+            return;
+        }
+        int uriId = uris.idOf(uri);
+        int classId = exceptionClass != null ? classIds.get(exceptionClass) : Dictionary.NONE;
+
+        long seq = cursor.getAndIncrement();
+        int offset = (int) (seq & mask) * RECORD_SIZE;
+
+        long committed = (long) LONGS.getVolatile(buffer, offset + SEQ);
+        if (committed < 0 || committed > seq || !LONGS.compareAndSet(buffer, offset + SEQ, committed, -(seq + 1))) {
+            dropped.increment();
+            return;
+        }
+        VarHandle.storeStoreFence();
+        buffer.putLong(offset + TIMESTAMP, System.currentTimeMillis());
+        buffer.putLong(offset + REQUEST_ID, requestId);
+        buffer.putShort(offset + URI_ID, (short) uriId);
+        buffer.putShort(offset + CODE_ID, (short) codeId);
+        buffer.putShort(offset + CLASS_ID, (short) classId);
+        buffer.putShort(offset + STATUS, (short) status);
+        LONGS.setRelease(buffer, offset + SEQ, seq + 1);
+    }
+
+    /**
+     * fromSeq 부터 지금까지 기록된 것을 순서대로 방문한다. 이미 덮어쓰인 오래된 기록은 건너뛴다.
+     * 다음에 이어서 읽을 seq 를 돌려준다.
+     */
+    public long scan(long fromSeq, ErrorEventVisitor visitor) {
+        long end = cursor.get();
+        long start = Math.max(fromSeq, end - capacity);
+        for (long seq = Math.max(start, 0); seq < end; seq++) {
+            int offset = (int) (seq & mask) * RECORD_SIZE;
+            if ((long) LONGS.getAcquire(buffer, offset + SEQ) != seq + 1) {
+                continue;
+            }
+            long timestamp = buffer.getLong(offset + TIMESTAMP);
+            long requestId = buffer.getLong(offset + REQUEST_ID);
+            int uriId = buffer.getShort(offset + URI_ID) & 0xFFFF;
+            int codeId = buffer.getShort(offset + CODE_ID) & 0xFFFF;
+            int classId = buffer.getShort(offset + CLASS_ID) & 0xFFFF;
+            int status = buffer.getShort(offset + STATUS) & 0xFFFF;
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getVolatile(buffer, offset + SEQ) != seq + 1) {
+                continue;
+            }
+            visitor.visit(seq, timestamp, requestId, uriId, codeId, classId, status);
+        }
+        return end;
+    }
+
+    public long scan(ErrorEventVisitor visitor) {
+        return scan(0, visitor);
+    }
+
+    public String uri(int uriId) {
+        return uris.valueOf(uriId);
+    }
+
+    public String exceptionClassName(int classId) {
+        return classes.valueOf(classId);
+    }
+
+    // 지금까지 기록한 수 (덮어쓰인 것, 버린 것 포함)
+    public long getWritten() {
+        return cursor.get();
+    }
+
+    // 슬롯을 차지하지 못해 버린 기록 수 (lapping)
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static int powerOfTwo(int capacity) {
+        int bounded = Math.max(2, Math.min(capacity, MAX_CAPACITY));
+        return Integer.highestOneBit(bounded - 1) << 1;
+    }
+}
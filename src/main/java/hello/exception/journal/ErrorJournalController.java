@@ -0,0 +1,56 @@
+package hello.exception.journal;
+
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/*
+ErrorJournal 내용 확인용 (최근 limit 건), 오류 코드별 발생 수
+- 요청 id, 경로, 예외 클래스가 그대로 보이므로 DebugEndpointInterceptor 가 지킨다. (X-Debug-Token, WebConfig 참고)
+ */
+@RestController
+@RequiredArgsConstructor
+public class ErrorJournalController {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+
+    @GetMapping("/debug/error-journal")
+    public Map<String, Object> errorJournal(@RequestParam(defaultValue = "100") int limit) {
+        long written = errorJournal.getWritten();
+        List<Map<String, Object>> events = new ArrayList<>();
+        errorJournal.scan(Math.max(0, written - Math.min(Math.max(limit, 0), MAX_LIMIT)),
+                (seq, timestampMillis, requestId, uriId, codeId, classId, status) -> {
+                    Map<String, Object> event = new LinkedHashMap<>();
+                    event.put("seq", seq);
+                    event.put("timestamp", Instant.ofEpochMilli(timestampMillis).toString());
+                    event.put("requestId", requestId == 0 ? null : String.format("%016x", requestId));
+                    event.put("uri", errorJournal.uri(uriId));
+                    ErrorCode errorCode = ErrorCode.of(codeId);
+                    event.put("code", errorCode != null ? errorCode.getCode() : null);
+                    event.put("exception", errorJournal.exceptionClassName(classId));
+                    event.put("status", status);
+                    events.add(event);
+                });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", errorJournal.getCapacity());
+        result.put("written", written);
+        result.put("dropped", errorJournal.getDropped());
+        result.put("codes", errorCodeRegistry.getCounts());
+        result.put("events", events);
+        return result;
+    }
+}
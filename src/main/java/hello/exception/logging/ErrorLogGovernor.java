@@ -0,0 +1,149 @@
+package hello.exception.logging;
+
+import hello.exception.memory.MemoryPressureEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*
+오류 로그 조절기
+- 오류 처리기들은 오류마다 로그를 남긴다. (ErrorPageController#printErrorInfo 는 오류 하나에 7줄)
+  오류가 폭주하면 로그 쓰기 자체가 CPU, 디스크 I/O 를 잡아먹는다.
+- 분류(LogCategory)별로 window 동안의 오류 수를 센다.
+    - 초당 오류 수가 quiet-above 를 넘으면 그 분류는 "요약 모드"가 된다.
+      오류마다 남기던 상세 로그를 끄고, window 마다 "N 건 발생" 요약 한 줄과 표본 오류 한 건을 남긴다.
+      표본은 그 window 에서 처음 들어온 오류의 예외 클래스, 메시지, 경로(route)다. 요약만으로는 무엇이 폭주하는지 알 수 없다.
+    - 초당 오류 수가 restore-below 아래로 내려오면 다시 상세 로그를 남긴다. (두 기준을 다르게 두어 깜빡임을 막는다.)
+- 요청 스레드에서 하는 일은 LongAdder 증가와 volatile 필드(quietMask) 한 번 읽기뿐이다.
+  요약 모드에서는 표본 자리를 한 번 더 읽고, window 의 첫 오류만 표본을 만들어 CAS 로 넣는다.
+  판단과 로그 출력은 별도 스레드가 window 마다 한다.
+- 메모리가 부족하면(MemoryPressureEvent) 모든 분류의 상세 로그를 멈춘다. (스택 트레이스 렌더링은 메모리를 많이 쓴다.)
+  quietMask 의 SUSPENDED 비트로 표시하므로 요청 스레드가 읽는 필드는 그대로 하나다.
+
+사용법
+- if (errorLogGovernor.verbose(LogCategory.ERROR_PAGE, request, ex)) { 상세 로그 }
+  ex 는 없어도 된다. (상태 코드만 있는 오류 화면)
+ */
+@Slf4j
+@Component
+public class ErrorLogGovernor implements DisposableBean {
+
+    private static final int SUSPENDED = 1 << 31;
+
+    private final LongAdder[] counts = new LongAdder[LogCategory.values().length];
+    private final AtomicReferenceArray<Sample> samples = new AtomicReferenceArray<>(LogCategory.values().length);
+    private final double quietAbove;
+    private final double restoreBelow;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile int quietMask;
+
+    public ErrorLogGovernor(@Value("${error.log.governor.quiet-above:50}") double quietAbove,
+                            @Value("${error.log.governor.restore-below:10}") double restoreBelow,
+                            @Value("${error.log.governor.window-millis:1000}") long windowMillis) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        this.quietAbove = quietAbove;
+        this.restoreBelow = restoreBelow;
+        this.windowMillis = windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "error-log-governor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::evaluate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 오류 하나를 세고, 상세 로그를 남겨도 되는지 알려준다.
+     * 상세 로그를 남기지 않을 때는 window 의 표본 자리가 비어 있으면 이 오류를 표본으로 남긴다.
+     */
+    public boolean verbose(LogCategory category, HttpServletRequest request, Throwable ex) {
+        int index = category.ordinal();
+        counts[index].increment();
+        if ((quietMask & (category.bit | SUSPENDED)) == 0) {
+            return true;
+        }
+        if (samples.get(index) == null) {
+            samples.compareAndSet(index, null, new Sample(ex, route(request)));
+        }
+        return false;
+    }
+
+    public boolean isQuiet(LogCategory category) {
+        return (quietMask & (category.bit | SUSPENDED)) != 0;
+    }
+
+    @EventListener
+    public synchronized void onMemoryPressure(MemoryPressureEvent event) {
+        quietMask = event.isUnderPressure() ? quietMask | SUSPENDED : quietMask & ~SUSPENDED;
+    }
+
+    synchronized void evaluate() {
+        int mask = quietMask;
+        for (LogCategory category : LogCategory.values()) {
+            long count = counts[category.ordinal()].sumThenReset();
+            Sample sample = samples.getAndSet(category.ordinal(), null);
+            double perSecond = count * 1000.0 / windowMillis;
+            boolean quiet = (mask & category.bit) != 0;
+            boolean suspended = (mask & SUSPENDED) != 0;
+
+            if (!quiet && perSecond > quietAbove) {
+                mask |= category.bit;
+                log.warn("[{}] {} errors/s, switching to sampled summaries", category, perSecond);
+            } else if (quiet && perSecond < restoreBelow) {
+                mask &= ~category.bit;
+                log.info("[{}] {} errors/s, verbose error logging restored", category, perSecond);
+            } else if (quiet || (suspended && count > 0)) {
+                log.info("[{}] {} errors in last {}ms (verbose logging suppressed)", category, count, windowMillis);
+            }
+            if (sample != null) {
+                log.warn("[{}] sampled error: {}: {} route={}", category, sample.type, sample.message, sample.route);
+            }
+        }
+        quietMask = mask;
+    }
+
+    // 오류 화면(ERROR 디스패치)이면 원래 요청의 경로, 아니면 매핑된 패턴(없으면 URI)
+    private static String route(HttpServletRequest request) {
+        Object original = request.getAttribute(RequestDispatcher.ERROR_REQUEST_URI);
+        if (original != null) {
+            return original.toString();
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    // 문자열만 남긴다. (예외 객체와 그 스택을 window 동안 붙잡지 않는다.)
+    private static class Sample {
+
+        final String type;
+        final String message;
+        final String route;
+
+        Sample(Throwable ex, String route) {
+            this.type = ex != null ? ex.getClass().getName() : "-";
+            this.message = ex != null ? ex.getMessage() : null;
+            this.route = route;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package hello.exception.logging;
+
+/*
+ErrorLogGovernor 가 오류 발생률을 따로 세는 로그 분류
+ */
+public enum LogCategory {
+    MY_RESOLVER,
+    USER_RESOLVER,
+    ERROR_PAGE,
+    CONTROLLER_ADVICE,
+    VALIDATION;
+
+    final int bit = 1 << ordinal();
+}
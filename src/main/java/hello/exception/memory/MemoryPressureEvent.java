@@ -0,0 +1,14 @@
+package hello.exception.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+메모리 부족 상태가 바뀔 때 MemoryPressureMonitor 가 발행한다.
+ */
+@Getter
+@AllArgsConstructor
+public class MemoryPressureEvent {
+    private final boolean underPressure;
+    private final double usedRatio;
+}
@@ -0,0 +1,158 @@
+package hello.exception.memory;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/*
+메모리 부족 감시
+- 힙이 거의 찬 상태에서 오류 처리(Thymeleaf 렌더링, Jackson 직렬화, 스택 트레이스 로그)가 메모리를 더 쓰면
+  GC 가 더 자주 돌고, 그래서 더 느려지고, 그래서 오류가 더 나는 악순환이 된다.
+- 판단 기준은 GC 직후 old 영역 사용률이다. (GC 직전 사용률은 쓰레기를 포함하므로 의미가 없다.)
+    - GC 알림(GarbageCollectionNotificationInfo): GC 가 끝날 때마다 old 영역의 GC 직후 사용량(collection usage)을 본다.
+    - collection usage threshold 알림: GC 직후 사용률이 enter-ratio 를 넘으면 JVM 이 바로 알려준다.
+- enter-ratio 이상이면 부족 상태가 되고, exit-ratio 아래로 내려와야 풀린다. (두 기준을 다르게 두어 깜빡임을 막는다.)
+- 요청 스레드는 isUnderPressure() 로 volatile 필드 하나만 읽는다.
+
+부족 상태에서
+- 오류 처리기(ExControllerAdvice, ValidationControllerAdvice, 두 HandlerExceptionResolver, ErrorPageController,
+  ErrorBudgetFilter)는 미리 만들어 둔 최소 응답(StaticErrorResponse)만 쓴다.
+- 상태가 바뀔 때 MemoryPressureEvent 를 발행한다. ErrorLogGovernor 는 상세 로그(스택 트레이스 포함)를,
+  TraceExporter 는 trace 내보내기를 멈춘다.
+ */
+@Slf4j
+@Component
+public class MemoryPressureMonitor implements DisposableBean {
+
+    private final double enterRatio;
+    private final double exitRatio;
+    private final ApplicationEventPublisher publisher;
+    private final List<MemoryPoolMXBean> oldPools = new ArrayList<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::handleNotification;
+
+    private volatile boolean underPressure;
+
+    public MemoryPressureMonitor(@Value("${memory.pressure.enabled:true}") boolean enabled,
+                                 @Value("${memory.pressure.enter-ratio:0.90}") double enterRatio,
+                                 @Value("${memory.pressure.exit-ratio:0.75}") double exitRatio,
+                                 ApplicationEventPublisher publisher) {
+        this.enterRatio = enterRatio;
+        this.exitRatio = Math.min(exitRatio, enterRatio);
+        this.publisher = publisher;
+        if (enabled) {
+            install();
+        }
+    }
+
+    public boolean isUnderPressure() {
+        return underPressure;
+    }
+
+    /**
+     * GC 직후 old 영역 사용률로 상태를 바꾼다.
+     */
+    synchronized void update(double usedRatio) {
+        if (!underPressure && usedRatio >= enterRatio) {
+            underPressure = true;
+            log.warn("memory pressure: old gen {}% used after GC, serving static error responses", percent(usedRatio));
+            publisher.publishEvent(new MemoryPressureEvent(true, usedRatio));
+        } else if (underPressure && usedRatio < exitRatio) {
+            underPressure = false;
+            log.warn("memory pressure cleared: old gen {}% used after GC", percent(usedRatio));
+            publisher.publishEvent(new MemoryPressureEvent(false, usedRatio));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException ignored) {
+                // 이미 제거됨
+            }
+        }
+        emitters.clear();
+        for (MemoryPoolMXBean pool : oldPools) {
+            if (pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold(0);    // 0 은 threshold 알림을 끈다.
+            }
+        }
+    }
+
+    // old 영역: 힙 영역 중 usage threshold 를 지원하는 것 (eden, survivor 는 지원하지 않는다.)
+    private void install() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() && max > 0) {
+                oldPools.add(pool);
+                if (pool.isCollectionUsageThresholdSupported()) {
+                    pool.setCollectionUsageThreshold((long) (max * enterRatio));
+                }
+            }
+        }
+        if (oldPools.isEmpty()) {
+            log.info("memory pressure monitor disabled: no old generation pool with a fixed maximum");
+            return;
+        }
+
+        addListener(ManagementFactory.getMemoryMXBean());
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            addListener(gc);
+        }
+    }
+
+    private void addListener(Object bean) {
+        if (bean instanceof NotificationEmitter) {
+            NotificationEmitter emitter = (NotificationEmitter) bean;
+            emitter.addNotificationListener(listener, null, null);
+            emitters.add(emitter);
+        }
+    }
+
+    /*
+    GC 알림은 "GC 가 끝났다"는 신호로만 쓰고, 사용률은 old 영역의 collection usage(마지막 GC 직후 사용량)로 잰다.
+    GcInfo 에 담긴 GC 후 사용량은 쓰지 않는다. G1 young GC 의 GcInfo 에는 humongous 객체(큰 배열)가 빠져 있어서
+    힙이 거의 찼는데도 여유가 있는 것처럼 보이고, 부족 상태가 풀렸다 걸렸다 한다.
+     */
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(type)
+                || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            update(collectionUsageRatio());
+        }
+    }
+
+    private double collectionUsageRatio() {
+        double ratio = 0;
+        for (MemoryPoolMXBean pool : oldPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null && usage.getMax() > 0) {
+                ratio = Math.max(ratio, (double) usage.getUsed() / usage.getMax());
+            }
+        }
+        return ratio;
+    }
+
+    private static long percent(double ratio) {
+        return Math.round(ratio * 100);
+    }
+}
@@ -0,0 +1,152 @@
+package hello.exception.negotiation;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+import java.util.Locale;
+
+
+/*
+오류 응답용 Accept 헤더 분류기
+- UserHandlerExceptionResolver 는 "application/json".equals(acceptHeader) 로 비교했기 때문에
+  "application/json;charset=utf-8" 이나 "application/json, text/plain, *\/*" 같은 헤더를 놓쳤다. (HTML 오류 화면이 나갔다.)
+- 스프링의 produces 매칭은 정확하지만, 오류가 날 때마다 MediaType 을 새로 파싱하고 정렬한다.
+- 오류 경로에서 필요한 것은 JSON / CBOR / SMILE / HTML / TEXT 중 하나이므로,
+  헤더 문자열마다 한 번만 파싱해서 ErrorFormat 으로 바꾸고 그 결과를 캐시한다.
+
+분류 규칙
+- 미디어 타입의 파라미터(charset 등)는 무시하고, q 값이 가장 큰 형식을 고른다. q 가 같으면 먼저 나온 것을 고른다.
+- application/json, application/*+json, application/* --> JSON
+- application/cbor --> CBOR, application/x-jackson-smile --> SMILE
+- text/html, application/xhtml+xml, text/* --> HTML
+- text/plain --> TEXT
+- 헤더가 없거나 *\/* 뿐이면 HTML (기존 동작과 같다.)
+
+캐시
+- 원본 헤더 문자열의 해시로 고른 슬롯 하나에 (헤더, 결과) 를 담는다. 슬롯 수(CACHE_SLOTS)가 고정이므로 크기가 늘지 않는다.
+- 슬롯마다 second chance(CLOCK) 규칙으로 교체한다.
+    - 적중하면 referenced 표시를 남긴다.
+    - 놓쳤을 때 슬롯이 비었거나 referenced 가 없으면 새 헤더로 바꾸고,
+      referenced 가 있으면 표시만 지우고 넣지 않는다. (이번 헤더는 파싱 결과만 쓴다.)
+- 그래서 임의의 Accept 헤더를 계속 보내도 자주 쓰이는 헤더는 밀려나지 않고, 임의의 헤더가 캐시를 영구히 차지하지도 않는다.
+- 슬롯 값은 불변 객체(Entry)이고 referenced 는 힌트일 뿐이므로 잠금 없이 읽고 쓴다. (경합 시 한 번 더 파싱할 뿐이다.)
+ */
+public final class AcceptClassifier {
+
+    private static final int CACHE_SLOTS = 256;   // 2의 거듭제곱
+    private static final ErrorFormat DEFAULT = ErrorFormat.HTML;
+    private static final Entry[] CACHE = new Entry[CACHE_SLOTS];
+
+    private AcceptClassifier() {
+    }
+
+    public static ErrorFormat classify(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders("Accept");
+        if (headers == null || !headers.hasMoreElements()) {
+            return DEFAULT;
+        }
+        String accept = headers.nextElement();
+        while (headers.hasMoreElements()) {
+            accept = accept + "," + headers.nextElement();
+        }
+        return classify(accept);
+    }
+
+    public static ErrorFormat classify(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return DEFAULT;
+        }
+        int slot = slotOf(accept);
+        Entry entry = CACHE[slot];
+        if (entry != null && entry.accept.equals(accept)) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.format;
+        }
+
+        ErrorFormat format = parse(accept);
+        if (entry == null || !entry.referenced) {
+            CACHE[slot] = new Entry(accept, format);
+        } else {
+            entry.referenced = false;
+        }
+        return format;
+    }
+
+    static boolean isCached(String accept) {
+        Entry entry = CACHE[slotOf(accept)];
+        return entry != null && entry.accept.equals(accept);
+    }
+
+    private static int slotOf(String accept) {
+        int hash = accept.hashCode();
+        return (hash ^ (hash >>> 16)) & (CACHE_SLOTS - 1);
+    }
+
+    static ErrorFormat parse(String accept) {
+        ErrorFormat best = null;
+        float bestQuality = 0;
+
+        for (String range : accept.split(",")) {
+            int paramStart = range.indexOf(';');
+            String type = (paramStart < 0 ? range : range.substring(0, paramStart)).trim().toLowerCase(Locale.ROOT);
+            ErrorFormat format = formatOf(type);
+            if (format == null) {
+                continue;
+            }
+            float quality = paramStart < 0 ? 1 : quality(range.substring(paramStart + 1));
+            if (quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best != null ? best : DEFAULT;
+    }
+
+    // */* 는 null 을 돌려준다. 어떤 형식이든 괜찮다는 뜻이므로 기본값을 따른다.
+    private static ErrorFormat formatOf(String type) {
+        if (type.equals("application/json") || type.equals("application/*")
+                || (type.startsWith("application/") && type.endsWith("+json"))) {
+            return ErrorFormat.JSON;
+        }
+        if (type.equals("application/cbor")) {
+            return ErrorFormat.CBOR;
+        }
+        if (type.equals("application/x-jackson-smile")) {
+            return ErrorFormat.SMILE;
+        }
+        if (type.equals("text/html") || type.equals("application/xhtml+xml") || type.equals("text/*")) {
+            return ErrorFormat.HTML;
+        }
+        if (type.equals("text/plain")) {
+            return ErrorFormat.TEXT;
+        }
+        return null;
+    }
+
+    private static float quality(String params) {
+        for (String param : params.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(trimmed.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static final class Entry {
+
+        final String accept;
+        final ErrorFormat format;
+        volatile boolean referenced;
+
+        Entry(String accept, ErrorFormat format) {
+            this.accept = accept;
+            this.format = format;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package hello.exception.negotiation;
+
+/*
+오류 응답 형식
+- Accept 헤더를 분류한 결과. 헤더 문자열마다 한 번만 계산하고, 이 enum 값만 캐시에 남긴다.
+- CBOR, SMILE 은 내부 서비스 간 호출용 바이너리 형식이다. (JSON 과 같은 구조, 더 작고 빠르다.)
+ */
+public enum ErrorFormat {
+    JSON,
+    CBOR,
+    SMILE,
+    HTML,
+    TEXT;
+
+    public boolean isBinary() {
+        return this == CBOR || this == SMILE;
+    }
+
+    // JSON 처럼 body 에 구조화된 데이터를 담는 형식인지
+    public boolean isStructured() {
+        return this == JSON || isBinary();
+    }
+}
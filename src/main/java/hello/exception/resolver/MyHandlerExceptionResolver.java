@@ -1,5 +1,13 @@
 package hello.exception.resolver;
 
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.StaticErrorResponse;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.ModelAndView;
@@ -69,17 +77,33 @@ WebMvcConfigurer 를 통해 등록
  */
 
 @Slf4j
+@RequiredArgsConstructor
 public class MyHandlerExceptionResolver implements HandlerExceptionResolver {
 
+    private final ErrorLogGovernor errorLogGovernor;
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MemoryPressureMonitor memoryPressureMonitor;
+
     @Override
     public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
 
         try {
             if (ex instanceof IllegalArgumentException) {
-                log.info("IllegalArgumentException resolver to 400");
-
-                // 예외 상태 코드 변환
-                response.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+                if (errorLogGovernor.verbose(LogCategory.MY_RESOLVER, request, ex)) {
+                    log.info("IllegalArgumentException resolver to 400");
+                }
+                ErrorCode errorCode = errorCodeRegistry.codeOf(ex);
+                errorCodeRegistry.count(errorCode);
+                errorJournal.record(request, ex, errorCode);
+                if (memoryPressureMonitor.isUnderPressure()) {
+                    // 메모리 부족: ERROR 재요청, 뷰 렌더링, 직렬화 없이 미리 만든 최소 응답만 쓴다.
+                    StaticErrorResponse.write(response, errorCode.getStatus().value());
+                    return new ModelAndView();
+                }
+
+                // 예외 상태 코드 변환 (IllegalArgumentException -> BAD -> 400)
+                response.sendError(errorCode.getStatus().value(), ex.getMessage());
                 return new ModelAndView();  // 이 리턴 값은 흐름을 정상으로 돌려 놓는다.
 
                 // API 응답 처리
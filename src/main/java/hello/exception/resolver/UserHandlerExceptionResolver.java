@@ -1,7 +1,17 @@
 package hello.exception.resolver;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hello.exception.exception.UserException;
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.StaticErrorResponse;
+import hello.exception.exhandler.ErrorResultCodec;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import hello.exception.negotiation.AcceptClassifier;
+import hello.exception.negotiation.ErrorFormat;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.ModelAndView;
@@ -9,8 +19,7 @@ import org.springframework.web.servlet.ModelAndView;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 
 /*
@@ -35,31 +44,62 @@ HandlerExceptionResolver 에서 그냥 응답을 만들어 버리면 된다.
  */
 
 @Slf4j
+@RequiredArgsConstructor
 public class UserHandlerExceptionResolver implements HandlerExceptionResolver {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ErrorLogGovernor errorLogGovernor;
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MemoryPressureMonitor memoryPressureMonitor;
 
     @Override
     public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
 
         try {
             if (ex instanceof UserException) {
-                log.info("UserException resolver to 400");
-                String acceptHeader = request.getHeader("accept");
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                if (errorLogGovernor.verbose(LogCategory.USER_RESOLVER, request, ex)) {
+                    log.info("UserException resolver to 400");
+                }
+                ErrorCode errorCode = errorCodeRegistry.codeOf(ex);
+                errorCodeRegistry.count(errorCode);
+                errorJournal.record(request, ex, errorCode);
+                if (memoryPressureMonitor.isUnderPressure()) {
+                    // 메모리 부족: ERROR 재요청, 뷰 렌더링, 직렬화 없이 미리 만든 최소 응답만 쓴다.
+                    StaticErrorResponse.write(response, errorCode.getStatus().value());
+                    return new ModelAndView();
+                }
+                ErrorFormat format = AcceptClassifier.classify(request);
+                String message = message(errorCode, ex);   // JSON, CBOR, Smile, TEXT 모두 같은 메시지를 쓴다.
+                response.setStatus(errorCode.getStatus().value());
 
-                if ("application/json".equals(acceptHeader)) {
-                    Map<String, Object> errorResult = new HashMap<>();
-                    errorResult.put("ex", ex.getClass());
-                    errorResult.put("message", ex.getMessage());
-                    String result = objectMapper.writeValueAsString(errorResult);
+                // body 를 바이트로 만든 뒤 Content-Length 와 함께 쓴다. (chunked 인코딩을 쓰지 않는다.)
+                if (format == ErrorFormat.JSON) {
+                    // ErrorCodeRegistry 가 미리 만든 JSON 조각에 메시지만 붙인다. (ObjectMapper 를 거치지 않는다.)
+                    byte[] result = errorCodeRegistry.json(errorCode, message);
 
                     response.setContentType("application/json");
                     response.setCharacterEncoding("utf-8");
-                    response.getWriter().write(result);
+                    response.setContentLength(result.length);
+                    response.getOutputStream().write(result);
+                    return new ModelAndView();
+                } else if (format.isBinary()) {
+                    // 내부 서비스 간 호출 (CBOR, Smile)
+                    byte[] result = ErrorResultCodec.encode(errorCodeRegistry.result(errorCode, message), format);
+
+                    response.setContentType(ErrorResultCodec.contentType(format));
+                    response.setContentLength(result.length);
+                    response.getOutputStream().write(result);
+                    return new ModelAndView();
+                } else if (format == ErrorFormat.TEXT) {
+                    byte[] result = message.getBytes(StandardCharsets.UTF_8);
+
+                    response.setContentType("text/plain");
+                    response.setCharacterEncoding("utf-8");
+                    response.setContentLength(result.length);
+                    response.getOutputStream().write(result);
                     return new ModelAndView();
                 } else {
-                    // TEXT/HTML
+                    // HTML (text/html, 헤더 없음, */*)
                     return new ModelAndView("error/500");   // resources/templates/error/500.html 호출
                 }
 
@@ -71,4 +111,8 @@ public class UserHandlerExceptionResolver implements HandlerExceptionResolver {
 
         return null;
     }
+
+    private String message(ErrorCode errorCode, Exception ex) {
+        return ex.getMessage() != null ? ex.getMessage() : errorCodeRegistry.message(errorCode);
+    }
 }
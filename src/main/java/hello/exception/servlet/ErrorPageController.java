@@ -1,7 +1,16 @@
 package hello.exception.servlet;
 
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.ErrorResult;
+import hello.exception.exhandler.StaticErrorResponse;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import hello.exception.negotiation.AcceptClassifier;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -10,11 +19,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @Controller
+@RequiredArgsConstructor
 public class ErrorPageController {
 
     /*
@@ -28,37 +37,102 @@ public class ErrorPageController {
     public static final String ERROR_SERVLET_NAME = "javax.servlet.error.servlet_name";
     public static final String ERROR_STATUS_CODE = "javax.servlet.error.status_code";
 
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
 
+    private final ErrorLogGovernor errorLogGovernor;
+    private final ErrorJournal errorJournal;
+    private final ErrorCodeRegistry errorCodeRegistry;
+    private final MemoryPressureMonitor memoryPressureMonitor;
+
+
+    /*
+    Accept 헤더에 따라 오류 응답 형식을 고른다. (AcceptClassifier)
+    - JSON, CBOR, SMILE: 오류 코드, 메시지(ErrorResult)를 해당 형식으로 응답
+    - TEXT: "상태코드 메시지" 한 줄로 응답
+    - HTML: 오류 화면 뷰
+    예전에는 produces = application/json 인 메서드를 따로 두었는데, 오류가 날 때마다 MediaType 을 파싱하고 비교하게 된다.
+    반환 타입을 Object 로 두면 스프링은 실제 반환 값의 타입(String, ResponseEntity)을 보고 처리 방식을 고른다.
+    메모리가 부족하면 Accept 와 상관없이 미리 만들어 둔 최소 응답(StaticErrorResponse)을 돌려준다. (뷰 렌더링, 직렬화 없음)
+     */
     @RequestMapping("/error-page/404")
-    public String errorPage404(HttpServletRequest request, HttpServletResponse response) {
-        log.info("errorPage 404");
-        printErrorInfo(request);
-        return "error-page/404";
+    public Object errorPage404(HttpServletRequest request, HttpServletResponse response) {
+        if (errorLogGovernor.verbose(LogCategory.ERROR_PAGE, request, (Throwable) request.getAttribute(ERROR_EXCEPTION))) {
+            log.info("errorPage 404");
+            printErrorInfo(request);
+        }
+        return errorResponse(request, response, "error-page/404");
     }
 
     @RequestMapping("/error-page/500")
-    public String errorPage500(HttpServletRequest request, HttpServletResponse response) {
-        log.info("errorPage 500");
-        printErrorInfo(request);
-        return "error-page/500";
+    public Object errorPage500(HttpServletRequest request, HttpServletResponse response) {
+        if (errorLogGovernor.verbose(LogCategory.ERROR_PAGE, request, (Throwable) request.getAttribute(ERROR_EXCEPTION))) {
+            log.info("errorPage 500");
+            printErrorInfo(request);
+        }
+        return errorResponse(request, response, "error-page/500");
     }
 
-    // client 요청의 헤더가 Accept=application/json 인 경우 아래의 컨트롤러가 응답을 만든다. (/error-page/500 path 가 호출되었을 때)
-    // client 요청의 헤더가 Accept=*/* 인 경우 위의 컨트롤러가 응답을 만든다.
-    @RequestMapping(value = "/error-page/500", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> errorPage500Api(HttpServletRequest request, HttpServletResponse response) {
+    private Object errorResponse(HttpServletRequest request, HttpServletResponse response, String viewName) {
+        ErrorCode errorCode = record(request);
+        if (memoryPressureMonitor.isUnderPressure()) {
+            return StaticErrorResponse.entity(statusOf(request));
+        }
+        switch (AcceptClassifier.classify(request)) {
+            case JSON:
+            case CBOR:
+            case SMILE:
+                return errorPageApi(request, errorCode);   // 메시지 컨버터가 Accept 에 맞춰 JSON, CBOR, Smile 로 직렬화한다.
+            case TEXT:
+                return errorPageText(request, errorCode);
+            default:
+                response.setStatus(statusOf(request));   // 직접 요청한 경우에도 오류 화면은 500 으로 내려간다.
+                return viewName;
+        }
+    }
 
-        log.info("API errorPage 500");
+    // body 는 ErrorResult. JSON 이면 ErrorResultJsonConverter 가 레지스트리의 미리 만든 조각으로 쓴다. (기본 메시지면 body 통째로)
+    private ResponseEntity<ErrorResult> errorPageApi(HttpServletRequest request, ErrorCode errorCode) {
 
-        Map<String, Object> result = new HashMap<>();
-        Exception ex = (Exception) request.getAttribute(ERROR_EXCEPTION);
-        result.put("status", request.getAttribute(ERROR_STATUS_CODE));
-        result.put("message", ex.getMessage());
+        if (!errorLogGovernor.isQuiet(LogCategory.ERROR_PAGE)) {
+            log.info("API errorPage");
+        }
 
-        Integer statusCode = (Integer) request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
+        return ResponseEntity.status(statusOf(request)).body(errorCodeRegistry.result(errorCode, errorMessage(request)));
+    }
 
-        return new ResponseEntity<>(result, HttpStatus.valueOf(statusCode));
+    private ResponseEntity<String> errorPageText(HttpServletRequest request, ErrorCode errorCode) {
+        String message = errorMessage(request);
+        int statusCode = statusOf(request);
+        return ResponseEntity.status(statusCode)
+                .contentType(TEXT_PLAIN_UTF8)
+                .body(statusCode + " " + (message != null ? message : errorCodeRegistry.message(errorCode)));
+    }
+
+    // resolver 가 sendError 한 경우에는 resolver 에서 이미 세고 기록했으므로 건너뛴다.
+    private ErrorCode record(HttpServletRequest request) {
+        Throwable ex = (Throwable) request.getAttribute(ERROR_EXCEPTION);
+        int status = statusOf(request);
+        ErrorCode errorCode = ex != null ? errorCodeRegistry.codeOf(ex) : errorCodeRegistry.codeOf(status);
+
+        if (!errorJournal.isRecorded(request)) {
+            errorCodeRegistry.count(errorCode);
+            errorJournal.record(request, (String) request.getAttribute(ERROR_REQUEST_URI),
+                    ex != null ? ex.getClass() : null, errorCode, status);
+        }
+        return errorCode;
+    }
+
+    // /error-page/* 를 직접 요청하면 WAS 가 넣어주는 상태 코드가 없다. 이때는 500 으로 응답한다.
+    private static int statusOf(HttpServletRequest request) {
+        Integer statusCode = (Integer) request.getAttribute(RequestDispatcher.ERROR_STATUS_CODE);
+        return statusCode != null ? statusCode : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    }
 
+    // sendError 로 들어온 경우에는 예외가 없고 메시지만 있다. 메시지가 없으면 null (오류 코드의 기본 메시지를 쓴다.)
+    private String errorMessage(HttpServletRequest request) {
+        Throwable ex = (Throwable) request.getAttribute(ERROR_EXCEPTION);
+        Object message = ex != null ? ex.getMessage() : request.getAttribute(ERROR_MESSAGE);
+        return message != null && !message.toString().isEmpty() ? message.toString() : null;
     }
 
     private void printErrorInfo(HttpServletRequest request) {
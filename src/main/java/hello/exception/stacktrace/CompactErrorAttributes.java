@@ -0,0 +1,32 @@
+package hello.exception.stacktrace;
+
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.servlet.error.DefaultErrorAttributes;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+
+/*
+BasicErrorController 가 사용하는 오류 attribute 의 "trace" 를 StackTraceRenderer 로 만든다.
+- ErrorAttributes 빈을 직접 등록하면 스프링 부트의 DefaultErrorAttributes 자동 등록은 빠진다. (ErrorMvcAutoConfiguration)
+- 전체 스택 트레이스 문자열을 만든 뒤 바꾸는 것이 아니라, 처음부터 STACK_TRACE 를 빼고 요약본만 넣는다.
+- templates/error/500.html 의 ${trace}, /error 의 JSON 응답 모두 이 값을 쓴다.
+ */
+@Component
+public class CompactErrorAttributes extends DefaultErrorAttributes {
+
+    @Override
+    public Map<String, Object> getErrorAttributes(WebRequest webRequest, ErrorAttributeOptions options) {
+        boolean includeTrace = options.isIncluded(ErrorAttributeOptions.Include.STACK_TRACE);
+        Map<String, Object> errorAttributes =
+                super.getErrorAttributes(webRequest, options.excluding(ErrorAttributeOptions.Include.STACK_TRACE));
+
+        Throwable error = getError(webRequest);
+        if (includeTrace && error != null) {
+            errorAttributes.put("trace", StackTraceRenderer.render(error));
+        }
+        return errorAttributes;
+    }
+}
@@ -0,0 +1,51 @@
+package hello.exception.stacktrace;
+
+import ch.qos.logback.classic.pattern.ThrowableHandlingConverter;
+import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.CoreConstants;
+
+
+/*
+로그 패턴의 예외 출력을 StackTraceRenderer 로 바꾸는 logback converter (%cEx)
+- 로거에는 Throwable 을 그대로 넘긴다. log.error("...", e)
+  렌더링은 이벤트가 실제로 출력될 때만 일어나고, 어펜더(JSON 인코더 등)도 원래 예외를 받는다.
+- logback-spring.xml 에서 conversionRule 로 등록하고 콘솔 패턴의 기본 예외 출력으로 쓴다.
+  logging.exception-conversion-word=%wEx 로 스프링 부트 기본 출력으로 되돌릴 수 있다.
+- 옵션으로 바이트 budget 을 줄 수 있다. (%cEx{4096}, 기본 StackTraceRenderer.DEFAULT_BUDGET)
+- 직렬화된 이벤트처럼 원래 Throwable 이 없으면 logback 기본 출력으로 대신한다.
+ */
+public class CompactThrowableConverter extends ThrowableHandlingConverter {
+
+    private final ThrowableProxyConverter fallback = new ThrowableProxyConverter();
+    private int budget = StackTraceRenderer.DEFAULT_BUDGET;
+
+    @Override
+    public void start() {
+        String option = getFirstOption();
+        if (option != null) {
+            try {
+                budget = Integer.parseInt(option);
+            } catch (NumberFormatException e) {
+                addError("잘못된 budget: " + option);
+            }
+        }
+        fallback.setContext(getContext());
+        fallback.start();
+        super.start();
+    }
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        IThrowableProxy proxy = event.getThrowableProxy();
+        if (proxy == null) {
+            return CoreConstants.EMPTY_STRING;
+        }
+        if (!(proxy instanceof ThrowableProxy)) {
+            return fallback.convert(event);
+        }
+        return CoreConstants.LINE_SEPARATOR + StackTraceRenderer.render(((ThrowableProxy) proxy).getThrowable(), budget);
+    }
+}
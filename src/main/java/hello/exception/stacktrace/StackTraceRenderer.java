@@ -0,0 +1,181 @@
+package hello.exception.stacktrace;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+
+/*
+스택 트레이스 요약 출력
+- ResponseStatusException(..., new IllegalArgumentException()) 처럼 감싼 예외는 cause 가 깊고 프레임이 수백 개씩 된다.
+  이것을 로그, 오류 attribute(${trace}), JSON 오류 응답에 그대로 쓰면 출력 크기와 비용이 너무 크다.
+
+printStackTrace 와 다른 점
+- 프레임워크 프레임(스프링, 톰캣, 서블릿, 리플렉션)이 연속되면 "... N framework frames" 한 줄로 접는다.
+- 재귀 호출처럼 같은 프레임이 연속되면 한 번만 쓰고 "... repeated N more times" 로 줄인다.
+- cause, suppressed 예외는 감싼 예외와 겹치는 아래쪽 프레임을 "... N more" 로 생략한다. (printStackTrace 와 같다.)
+- 출력은 UTF-8 바이트 기준 budget 을 넘지 않는다. 넘칠 것 같으면 "... truncated" 로 끝낸다.
+- StringBuilder 는 스레드마다 하나를 재사용한다. (너무 커진 것은 버린다.)
+ */
+public final class StackTraceRenderer {
+
+    public static final int DEFAULT_BUDGET = 8 * 1024;
+
+    private static final String[] FRAMEWORK_PREFIXES = {
+            "org.springframework.",
+            "org.apache.catalina.",
+            "org.apache.coyote.",
+            "org.apache.tomcat.",
+            "javax.servlet.",
+            "java.lang.reflect.",
+            "jdk.internal.reflect.",
+            "sun.reflect.",
+            "java.util.concurrent.ThreadPoolExecutor",
+            "java.lang.Thread."
+    };
+    private static final String TRUNCATED = "\t... truncated";
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private StackTraceRenderer() {
+    }
+
+    public static String render(Throwable throwable) {
+        return render(throwable, DEFAULT_BUDGET);
+    }
+
+    public static String render(Throwable throwable, int budget) {
+        if (throwable == null) {
+            return "";
+        }
+        StringBuilder out = BUFFERS.get();
+        out.setLength(0);
+        try {
+            Rendering rendering = new Rendering(out, budget);
+            rendering.append(throwable, new StackTraceElement[0], "", "");
+            return out.toString();
+        } finally {
+            if (out.capacity() > MAX_POOLED_CAPACITY) {
+                BUFFERS.set(new StringBuilder(INITIAL_CAPACITY));
+            } else {
+                out.setLength(0);
+            }
+        }
+    }
+
+    static boolean isFrameworkFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        for (String prefix : FRAMEWORK_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Rendering {
+
+        private final StringBuilder out;
+        private final int budget;
+        private final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int bytes;
+        private boolean truncated;
+
+        Rendering(StringBuilder out, int budget) {
+            this.out = out;
+            this.budget = budget;
+        }
+
+        void append(Throwable throwable, StackTraceElement[] enclosingTrace, String indent, String caption) {
+            if (truncated) {
+                return;
+            }
+            if (!seen.add(throwable)) {
+                line(indent, "\t[CIRCULAR REFERENCE: ", throwable.toString(), "]");
+                return;
+            }
+            if (!line(indent, caption, throwable.toString(), "")) {
+                return;
+            }
+
+            StackTraceElement[] trace = throwable.getStackTrace();
+            int last = trace.length - 1;
+            int enclosing = enclosingTrace.length - 1;
+            while (last >= 0 && enclosing >= 0 && trace[last].equals(enclosingTrace[enclosing])) {
+                last--;
+                enclosing--;
+            }
+            int framesInCommon = trace.length - 1 - last;
+
+            for (int i = 0; i <= last; i++) {
+                int run = 0;
+                while (i + run <= last && isFrameworkFrame(trace[i + run])) {
+                    run++;
+                }
+                if (run > 1) {
+                    if (!line(indent, "\t... ", String.valueOf(run), " framework frames")) {
+                        return;
+                    }
+                    i += run - 1;
+                    continue;
+                }
+
+                int repeated = 0;
+                while (i + repeated + 1 <= last && trace[i + repeated + 1].equals(trace[i])) {
+                    repeated++;
+                }
+                if (!line(indent, "\tat ", trace[i].toString(), "")) {
+                    return;
+                }
+                if (repeated > 0) {
+                    if (!line(indent, "\t... repeated ", String.valueOf(repeated), " more times")) {
+                        return;
+                    }
+                    i += repeated;
+                }
+            }
+            if (framesInCommon > 0 && !line(indent, "\t... ", String.valueOf(framesInCommon), " more")) {
+                return;
+            }
+
+            for (Throwable suppressed : throwable.getSuppressed()) {
+                append(suppressed, trace, indent + "\t", "Suppressed: ");
+            }
+            Throwable cause = throwable.getCause();
+            if (cause != null) {
+                append(cause, trace, indent, "Caused by: ");
+            }
+        }
+
+        // 한 줄을 쓴다. budget 을 넘으면 쓰지 않고 truncated 표시를 남긴 뒤 false 를 반환한다.
+        private boolean line(String indent, String prefix, String text, String suffix) {
+            int lineBytes = utf8Length(indent) + utf8Length(prefix) + utf8Length(text) + utf8Length(suffix) + 1;
+            if (bytes + lineBytes + TRUNCATED.length() > budget) {
+                if (bytes + TRUNCATED.length() <= budget) {
+                    out.append(TRUNCATED);
+                }
+                truncated = true;
+                return false;
+            }
+            out.append(indent).append(prefix).append(text).append(suffix).append('\n');
+            bytes += lineBytes;
+            return true;
+        }
+
+        private static int utf8Length(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    length += 2;    // surrogate pair 는 2 + 2 = 4 바이트
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+}
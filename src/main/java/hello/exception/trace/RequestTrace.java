@@ -0,0 +1,166 @@
+package hello.exception.trace;
+
+import javax.servlet.ServletRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/*
+요청 하나의 구간(span) 기록
+- 구간 정보는 long 배열 하나에 담는다. 요청마다 할당은 이 객체와 배열 하나뿐이다. (MAX_SPANS 개 고정, 넘치는 구간은 버린다.)
+    - span * 3     : stage ordinal (하위 8비트) | (parent + 1) << 8
+    - span * 3 + 1 : 시작 시각
+    - span * 3 + 2 : 종료 시각 (0 이면 아직 끝나지 않음)
+- 시작, 종료 시각은 System.nanoTime() 이다. 내보낼 때 요청 시작 시각(epoch)을 기준으로 바꾼다.
+- request attribute 로 전달되므로 REQUEST 디스패치와 ERROR 디스패치가 같은 trace 를 공유한다.
+  ERROR_DISPATCH 구간은 REQUEST 구간(0번)의 자식으로 기록된다.
+- 오류 구간(Stage#isError)이 시작되었거나 TraceFilter 가 markError 를 호출하면 오류 trace 다. (TraceExporter 는 항상 내보낸다.)
+- 요청 하나는 한 번에 한 스레드만 처리하므로 동기화하지 않는다.
+  내보내는 스레드로는 큐를 통해 넘기므로 기록한 값이 그대로 보인다.
+ */
+public class RequestTrace {
+
+    public static final String ATTRIBUTE = RequestTrace.class.getName();
+
+    private static final int MAX_SPANS = 8;   // 오류 요청도 보통 5~7개 (REQUEST, CONTROLLER, RESOLVER, SEND_ERROR, ERROR_DISPATCH, VIEW_RENDER)
+    private static final int NONE = -1;
+    private static final int FIELDS = 3;
+    private static final int START = 1;
+    private static final int END = 2;
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final String uri;
+    private final long epochNanos;
+    private final long startNanos;
+
+    private final long[] spans = new long[MAX_SPANS * FIELDS];
+    private int size;
+    private int current = NONE;
+    private boolean error;
+    private boolean journaled;
+    private String traceId;
+
+    public RequestTrace(String uri) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceIdHigh = random.nextLong();
+        this.traceIdLow = random.nextLong();
+        this.uri = uri;
+        this.epochNanos = System.currentTimeMillis() * 1_000_000L;
+        this.startNanos = System.nanoTime();
+    }
+
+    public static RequestTrace of(ServletRequest request) {
+        return (RequestTrace) request.getAttribute(ATTRIBUTE);
+    }
+
+    public static void begin(ServletRequest request, Stage stage) {
+        RequestTrace trace = of(request);
+        if (trace != null) {
+            trace.begin(stage);
+        }
+    }
+
+    public static void end(ServletRequest request, Stage stage) {
+        RequestTrace trace = of(request);
+        if (trace != null) {
+            trace.end(stage);
+        }
+    }
+
+    public void begin(Stage stage) {
+        if (size == MAX_SPANS) {
+            return;
+        }
+        int span = size++;
+        int parent = current != NONE ? current : (span > 0 ? 0 : NONE);
+        int base = span * FIELDS;
+        spans[base] = stage.ordinal() | (long) (parent + 1) << 8;
+        spans[base + START] = System.nanoTime();
+        spans[base + END] = 0;
+        current = span;
+        if (stage.isError()) {
+            error = true;
+        }
+    }
+
+    // 아직 끝나지 않은 구간 중 가장 최근의 stage 구간을 끝낸다. 없으면 아무것도 하지 않는다.
+    public void end(Stage stage) {
+        for (int span = size - 1; span >= 0; span--) {
+            int base = span * FIELDS;
+            if ((int) (spans[base] & 0xFF) == stage.ordinal() && spans[base + END] == 0) {
+                spans[base + END] = System.nanoTime();
+                current = parent(span);
+                return;
+            }
+        }
+    }
+
+    // 오류 구간 없이 오류로 끝난 요청 (WAS 까지 올라간 예외, 4xx/5xx 를 직접 쓴 응답)
+    public void markError() {
+        error = true;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    // ErrorJournal 이 이 요청을 기록했다는 표시. 처음 표시할 때만 true (REQUEST, ERROR 디스패치를 합쳐 한 번만 기록한다.)
+    public boolean markJournaled() {
+        if (journaled) {
+            return false;
+        }
+        journaled = true;
+        return true;
+    }
+
+    public boolean isJournaled() {
+        return journaled;
+    }
+
+    public String getTraceId() {
+        if (traceId == null) {
+            traceId = hex(traceIdHigh) + hex(traceIdLow);
+        }
+        return traceId;
+    }
+
+    // 오류 기록(ErrorJournal)에 남기는 요청 id. trace id 의 뒤 16자리와 같다.
+    public long getTraceIdLow() {
+        return traceIdLow;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Stage stage(int span) {
+        return Stage.of((int) (spans[span * FIELDS] & 0xFF));
+    }
+
+    public int parent(int span) {
+        return (int) (spans[span * FIELDS] >>> 8) - 1;
+    }
+
+    public String spanId(int span) {
+        return hex(traceIdLow + span + 1);
+    }
+
+    public long startEpochNanos(int span) {
+        return epochNanos + (spans[span * FIELDS + START] - startNanos);
+    }
+
+    // 끝나지 않은 구간은 내보내는 시점에 끝난 것으로 본다.
+    public long endEpochNanos(int span, long now) {
+        long end = spans[span * FIELDS + END] != 0 ? spans[span * FIELDS + END] : now;
+        return epochNanos + (end - startNanos);
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+}
@@ -0,0 +1,37 @@
+package hello.exception.trace;
+
+/*
+오류 요청이 시간을 쓰는 구간
+- REQUEST: 클라이언트 요청 전체 (REQUEST 디스패치, TraceFilter)
+- CONTROLLER: 인터셉터 preHandle 부터 컨트롤러가 끝날 때(정상이면 postHandle, 예외면 ExceptionResolver 진입)까지
+- RESOLVER: ExceptionResolver 체인 진입부터 afterCompletion 까지 (resolver 가 돌려준 뷰 렌더링 포함)
+- SEND_ERROR: response.sendError 호출
+- ERROR_DISPATCH: WAS 의 오류 페이지 재요청 (ERROR 디스패치, TraceFilter)
+- VIEW_RENDER: 정상 흐름의 postHandle 부터 afterCompletion 까지
+RESOLVER, SEND_ERROR, ERROR_DISPATCH 구간이 있는 trace 는 오류 trace 다. (RequestTrace#isError)
+RequestTrace 는 ordinal 을 8비트에 담으므로 256 개를 넘으면 안 된다.
+ */
+public enum Stage {
+    REQUEST(false),
+    CONTROLLER(false),
+    RESOLVER(true),
+    SEND_ERROR(true),
+    ERROR_DISPATCH(true),
+    VIEW_RENDER(false);
+
+    private static final Stage[] VALUES = values();
+
+    private final boolean error;
+
+    Stage(boolean error) {
+        this.error = error;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    static Stage of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
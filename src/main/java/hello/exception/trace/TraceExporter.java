@@ -0,0 +1,217 @@
+package hello.exception.trace;
+
+import hello.exception.memory.MemoryPressureEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletRequestEvent;
+import javax.servlet.ServletRequestListener;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+완성된 RequestTrace 를 파일로 내보낸다.
+- ServletRequestListener 빈은 스프링 부트가 서블릿 컨테이너에 자동으로 등록한다.
+  requestDestroyed 는 ERROR 디스패치까지 모두 끝난 뒤 한 번 호출되므로, 이때 trace 를 큐에 넣는다.
+- 요청 스레드는 큐에 넣기만 한다. 큐가 가득 차면 버리고 개수만 센다.
+- 메모리가 부족한 동안(MemoryPressureEvent)에는 큐에 넣지 않고 버린 개수만 센다. (큐에 쌓인 trace 가 힙을 더 잡지 않도록)
+- 별도 스레드가 한 줄에 trace 하나씩 OTLP JSON(ExportTraceServiceRequest) 형식으로 쓴다.
+  (OpenTelemetry Collector 의 otlpjsonfile receiver 로 그대로 읽을 수 있다.)
+
+무엇을, 얼마나 내보내나
+- 기본값은 꺼짐이다. (trace.export.enabled=false) 필요할 때만 켠다.
+- 오류 trace(RequestTrace#isError)는 모두 내보내고, 정상 trace 는 trace.export.sample-rate 비율만 내보낸다.
+  샘플링은 trace id 로 정한다. (OpenTelemetry 의 TraceIdRatioBased 와 같은 방식, 같은 trace 는 항상 같은 결과)
+- 파일이 trace.export.max-bytes 를 넘으면 <path>.1 로 옮기고(이전 .1 은 지운다) 새 파일에 쓴다.
+  따라서 디스크는 최대 max-bytes 의 두 배만 쓴다. (크기는 쓴 글자 수로 센다. URI 는 퍼센트 인코딩된 ASCII 이다.)
+ */
+@Slf4j
+@Component
+public class TraceExporter implements ServletRequestListener, DisposableBean {
+
+    private static final String SERVICE_NAME = "exception";
+    private static final String SCOPE_NAME = "hello.exception.trace";
+    private static final int SPAN_KIND_SERVER = 2;
+    private static final int SPAN_KIND_INTERNAL = 1;
+
+    private final boolean enabled;
+    private final Path path;
+    private final Path rotatedPath;
+    private final long sampleBound;
+    private final long maxBytes;
+    private final BlockingQueue<RequestTrace> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private volatile boolean suspended;
+
+    public TraceExporter(@Value("${trace.export.enabled:false}") boolean enabled,
+                         @Value("${trace.export.path:build/traces/otlp-traces.jsonl}") String path,
+                         @Value("${trace.export.queue-size:4096}") int queueSize,
+                         @Value("${trace.export.sample-rate:0.01}") double sampleRate,
+                         @Value("${trace.export.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.rotatedPath = Paths.get(path + ".1");
+        this.sampleBound = sampleRate >= 1 ? Long.MAX_VALUE : (long) (Math.max(sampleRate, 0) * Long.MAX_VALUE);
+        this.maxBytes = maxBytes;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writerThread = new Thread(this::writeLoop, "trace-exporter");
+        this.writerThread.setDaemon(true);
+        if (enabled) {
+            writerThread.start();
+        }
+    }
+
+    @Override
+    public void requestDestroyed(ServletRequestEvent sre) {
+        RequestTrace trace = RequestTrace.of(sre.getServletRequest());
+        if (!enabled || trace == null || !(trace.isError() || sampled(trace))) {
+            return;
+        }
+        if (suspended || !queue.offer(trace)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    boolean sampled(RequestTrace trace) {
+        return sampleBound == Long.MAX_VALUE || (trace.getTraceIdLow() & Long.MAX_VALUE) < sampleBound;
+    }
+
+    @EventListener
+    public void onMemoryPressure(MemoryPressureEvent event) {
+        suspended = event.isUnderPressure();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(2));
+    }
+
+    private void writeLoop() {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        } catch (IOException e) {
+            log.warn("trace export disabled, cannot create {}", path, e);
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(2048);
+        BufferedWriter writer = null;
+        try {
+            long written = Files.exists(path) ? Files.size(path) : 0;
+            writer = open();
+            while (running || !queue.isEmpty()) {
+                RequestTrace trace;
+                try {
+                    trace = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    trace = queue.poll();
+                    if (trace == null) {
+                        break;
+                    }
+                }
+                if (trace == null) {
+                    writer.flush();
+                    continue;
+                }
+                line.setLength(0);
+                appendTrace(line, trace);
+                if (written > 0 && written + line.length() + 1 > maxBytes) {
+                    writer.close();
+                    Files.move(path, rotatedPath, StandardCopyOption.REPLACE_EXISTING);
+                    writer = open();
+                    written = 0;
+                }
+                writer.append(line).append('\n');
+                written += line.length() + 1;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("trace export stopped: {}", path, e);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private BufferedWriter open() throws IOException {
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void closeQuietly(BufferedWriter writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.debug("trace export close failed: {}", path, e);
+        }
+    }
+
+    void appendTrace(StringBuilder out, RequestTrace trace) {
+        long now = System.nanoTime();
+        out.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[")
+                .append("{\"key\":\"service.name\",\"value\":{\"stringValue\":\"").append(SERVICE_NAME).append("\"}}")
+                .append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"").append(SCOPE_NAME).append("\"},\"spans\":[");
+
+        for (int span = 0; span < trace.size(); span++) {
+            if (span > 0) {
+                out.append(',');
+            }
+            Stage stage = trace.stage(span);
+            out.append("{\"traceId\":\"").append(trace.getTraceId())
+                    .append("\",\"spanId\":\"").append(trace.spanId(span)).append('"');
+            if (trace.parent(span) >= 0) {
+                out.append(",\"parentSpanId\":\"").append(trace.spanId(trace.parent(span))).append('"');
+            }
+            out.append(",\"name\":\"").append(stage.name()).append('"')
+                    .append(",\"kind\":").append(stage == Stage.REQUEST ? SPAN_KIND_SERVER : SPAN_KIND_INTERNAL)
+                    .append(",\"startTimeUnixNano\":\"").append(trace.startEpochNanos(span)).append('"')
+                    .append(",\"endTimeUnixNano\":\"").append(trace.endEpochNanos(span, now)).append('"');
+            if (stage == Stage.REQUEST) {
+                out.append(",\"attributes\":[{\"key\":\"http.target\",\"value\":{\"stringValue\":\"");
+                appendEscaped(out, trace.getUri());
+                out.append("\"}}]");
+            }
+            out.append('}');
+        }
+        out.append("]}]}]}");
+    }
+
+    private void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+    }
+}
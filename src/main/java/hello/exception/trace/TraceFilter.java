@@ -0,0 +1,87 @@
+package hello.exception.trace;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+
+/*
+구간 기록 필터
+- 가장 바깥(order -1)에서 REQUEST, ERROR 디스패치 모두에 적용한다.
+- REQUEST: RequestTrace 를 만들어 request attribute 에 넣고 REQUEST 구간을 기록한다.
+  response 를 감싸서 sendError 호출도 SEND_ERROR 구간으로 남긴다.
+  예외가 필터 밖으로 나가거나 상태 코드가 4xx, 5xx 이면 오류 trace 로 표시한다.
+- ERROR: 같은 request 에 남아있는 RequestTrace 를 꺼내서 ERROR_DISPATCH 구간을 기록한다.
+- 완성된 trace 는 요청이 완전히 끝날 때(ServletRequestListener#requestDestroyed) TraceExporter 가 내보낸다.
+ */
+public class TraceFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (request.getDispatcherType() == DispatcherType.ERROR) {
+            doFilterError(request, response, chain);
+            return;
+        }
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        RequestTrace trace = new RequestTrace(((HttpServletRequest) request).getRequestURI());
+        request.setAttribute(RequestTrace.ATTRIBUTE, trace);
+        trace.begin(Stage.REQUEST);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, new TracedResponse(httpResponse, trace));
+            completed = true;
+        } finally {
+            trace.end(Stage.REQUEST);
+            if (!completed || httpResponse.getStatus() >= 400) {
+                trace.markError();
+            }
+        }
+    }
+
+    private void doFilterError(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        RequestTrace trace = RequestTrace.of(request);
+        if (trace == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        trace.begin(Stage.ERROR_DISPATCH);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trace.end(Stage.ERROR_DISPATCH);
+        }
+    }
+
+    private static class TracedResponse extends HttpServletResponseWrapper {
+
+        private final RequestTrace trace;
+
+        TracedResponse(HttpServletResponse response, RequestTrace trace) {
+            super(response);
+            this.trace = trace;
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            trace.begin(Stage.SEND_ERROR);
+            try {
+                super.sendError(sc, msg);
+            } finally {
+                trace.end(Stage.SEND_ERROR);
+            }
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            trace.begin(Stage.SEND_ERROR);
+            try {
+                super.sendError(sc);
+            } finally {
+                trace.end(Stage.SEND_ERROR);
+            }
+        }
+    }
+}
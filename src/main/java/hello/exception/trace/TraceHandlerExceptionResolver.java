@@ -0,0 +1,26 @@
+package hello.exception.trace;
+
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+
+/*
+ExceptionResolver 체인의 맨 앞에 등록해서, 예외가 컨트롤러 밖으로 나온 시점을 기록한다.
+- CONTROLLER 구간을 끝내고 RESOLVER 구간을 시작한다. (RESOLVER 구간은 LogInterceptor#afterCompletion 에서 끝난다.)
+- 항상 null 을 반환하므로 다음 resolver 가 그대로 예외를 처리한다.
+ */
+public class TraceHandlerExceptionResolver implements HandlerExceptionResolver {
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTrace trace = RequestTrace.of(request);
+        if (trace != null) {
+            trace.end(Stage.CONTROLLER);
+            trace.begin(Stage.RESOLVER);
+        }
+        return null;
+    }
+}
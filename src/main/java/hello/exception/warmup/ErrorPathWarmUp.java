@@ -0,0 +1,194 @@
+package hello.exception.warmup;
+
+import hello.exception.exhandler.ExceptionHandlerRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.server.ErrorPage;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/*
+오류 경로 워밍업
+- 배포 직후 첫 UserException, IllegalArgumentException 요청은 평소보다 10~100배 느리다.
+  클래스 로딩, ObjectMapper 초기화, Thymeleaf 템플릿(error/500 등) 파싱, JIT 가 모두 첫 요청에 몰리기 때문이다.
+- ApplicationStartedEvent 는 내장 톰캣이 뜬 뒤, readiness 가 ACCEPTING_TRAFFIC 이 되기 전에 발생한다.
+  이때 자기 자신에게 오류 요청을 보내서 오류 경로를 모두 한 번씩(iterations 번) 태워 둔다.
+    - ExControllerAdvice 의 각 @ExceptionHandler (/api, /api2, /api3)
+      /api/response-status-ex1, ex2 도 @ResponseStatus 예외지만 hello.exception.api 패키지이므로
+      ResponseStatusExceptionResolver 가 아니라 ExControllerAdvice 의 exHandler(Exception) 가 처리한다.
+    - ValidationControllerAdvice (타입 불일치, 파라미터 누락, 검증 실패)
+    - ResponseStatusExceptionResolver, MyHandlerExceptionResolver, UserHandlerExceptionResolver (WarmUpController)
+    - 실제로 등록된 ErrorPage 로 가는 오류 (text/html, application/json 각각)
+      WebServerCustomizer 는 꺼져 있으므로 보통은 /error (BasicErrorController) 이다. (ExceptionHandlerRegistry#getErrorPages)
+- 톰캣은 이미 연결을 받고 있으므로, 워밍업이 끝나기 전에 들어온 외부 요청은 ReadinessGateFilter 가 503 으로 돌려보낸다.
+- 경로별 첫 호출 시간과 마지막 호출 시간을 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class ErrorPathWarmUp implements ApplicationListener<ApplicationStartedEvent> {
+
+    private static final String JSON = "application/json";
+    private static final String HTML = "text/html";
+
+    private final WarmUpRequests warmUpRequests;
+    private final ExceptionHandlerRegistry exceptionHandlerRegistry;
+    private final boolean enabled;
+    private final int iterations;
+
+    private volatile List<Timing> report = List.of();
+
+    public ErrorPathWarmUp(WarmUpRequests warmUpRequests,
+                           ExceptionHandlerRegistry exceptionHandlerRegistry,
+                           @Value("${error.warmup.enabled:true}") boolean enabled,
+                           @Value("${error.warmup.iterations:3}") int iterations) {
+        this.warmUpRequests = warmUpRequests;
+        this.exceptionHandlerRegistry = exceptionHandlerRegistry;
+        this.enabled = enabled;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        if (!enabled || !(context instanceof WebServerApplicationContext)) {
+            return;
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        if (port <= 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+
+        List<Timing> timings = new ArrayList<>();
+        for (WarmUpPath path : paths()) {
+            timings.add(warmUp(client, port, path));
+        }
+        report = List.copyOf(timings);
+
+        for (Timing timing : timings) {
+            log.info("warm-up [{}][{}] status={} first={}us last={}us",
+                    timing.getPath(), timing.getAccept(), timing.getStatus(),
+                    timing.getFirstNanos() / 1000, timing.getLastNanos() / 1000);
+        }
+        log.info("warm-up finished: {} paths x {} iterations in {}ms",
+                timings.size(), iterations, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<Timing> getReport() {
+        return report;
+    }
+
+    List<WarmUpPath> paths() {
+        Map<String, WarmUpPath> paths = new LinkedHashMap<>();
+
+        // ExControllerAdvice
+        for (String prefix : List.of("/api", "/api2", "/api3")) {
+            for (String id : List.of("ex", "bad", "user-ex")) {
+                add(paths, prefix + "/members/" + id, JSON);
+            }
+        }
+        add(paths, "/api/response-status-ex1", JSON);
+        add(paths, "/api/response-status-ex2", JSON);
+        add(paths, "/api/default-handler-ex?data=qqq", JSON);
+
+        // ValidationControllerAdvice
+        add(paths, "/api/default-handler-ex", JSON);
+        add(paths, "/api/validation-ex?memberId=&age=abc", JSON);
+
+        // ResponseStatusExceptionResolver, 직접 만든 HandlerExceptionResolver
+        for (String accept : List.of(JSON, HTML)) {
+            add(paths, "/warm-up/response-status", accept);
+            add(paths, "/warm-up/illegal-argument", accept);
+            add(paths, "/warm-up/user-ex", accept);
+        }
+
+        // ErrorPage (sendError, WAS 까지 전파된 예외)
+        for (ErrorPage errorPage : exceptionHandlerRegistry.getErrorPages()) {
+            for (String trigger : triggers(errorPage)) {
+                add(paths, trigger, HTML);
+                add(paths, trigger, JSON);
+            }
+        }
+
+        return new ArrayList<>(paths.values());
+    }
+
+    // 전역 ErrorPage(/error)는 모든 상태 코드와 예외를 받으므로 ServletExceptionController 의 경로를 모두 태운다.
+    private List<String> triggers(ErrorPage errorPage) {
+        if (errorPage.isGlobal()) {
+            return List.of("/error-400", "/error-404", "/error-500", "/error-ex");
+        }
+        return List.of(errorPage.getStatus() != null ? "/error-" + errorPage.getStatusCode() : "/error-ex");
+    }
+
+    private void add(Map<String, WarmUpPath> paths, String path, String accept) {
+        paths.putIfAbsent(path + "|" + accept, new WarmUpPath(path, accept));
+    }
+
+    private Timing warmUp(HttpClient client, int port, WarmUpPath path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path.getPath()))
+                .header("Accept", path.getAccept())
+                .header(WarmUpRequests.HEADER, warmUpRequests.getToken())
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+
+        int status = -1;
+        long first = -1;
+        long last = -1;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("warm-up failed [{}][{}]: {}", path.getPath(), path.getAccept(), e.toString());
+                break;
+            }
+            last = System.nanoTime() - start;
+            if (i == 0) {
+                first = last;
+            }
+        }
+        return new Timing(path.getPath(), path.getAccept(), status, first, last);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class WarmUpPath {
+        private final String path;
+        private final String accept;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Timing {
+        private final String path;
+        private final String accept;
+        private final int status;
+        private final long firstNanos;
+        private final long lastNanos;
+    }
+}
@@ -0,0 +1,47 @@
+package hello.exception.warmup;
+
+import hello.exception.exhandler.StaticErrorResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+
+/*
+준비 전 요청 차단
+- 내장 톰캣은 ApplicationStartedEvent 보다 먼저 연결을 받기 시작한다.
+  그래서 ErrorPathWarmUp 이 도는 동안에도 외부 요청이 들어와서 워밍업과 같이 "첫 요청" 비용을 치른다.
+- readiness 가 ACCEPTING_TRAFFIC 이 되기 전에는 워밍업 요청(WarmUpRequests)만 통과시키고
+  나머지는 503 최소 응답과 Retry-After 로 돌려보낸다.
+- ACCEPTING_TRAFFIC 은 ApplicationReadyEvent 와 함께 발행된다. ApplicationStartedEvent 리스너(워밍업)가 모두 끝난 뒤다.
+  종료 중 REFUSING_TRAFFIC 으로 바뀌어도 같은 방식으로 막는다.
+ */
+@RequiredArgsConstructor
+public class ReadinessGateFilter implements Filter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ApplicationAvailability applicationAvailability;
+    private final WarmUpRequests warmUpRequests;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (applicationAvailability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC
+                || warmUpRequests.isWarmUp((HttpServletRequest) request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        byte[] body = StaticErrorResponse.body(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        httpResponse.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+        httpResponse.setContentType("application/json");
+        httpResponse.setContentLength(body.length);
+        httpResponse.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,49 @@
+package hello.exception.warmup;
+
+import hello.exception.exception.BadRequestException;
+import hello.exception.exception.UserException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/*
+워밍업 전용 컨트롤러
+- hello.exception.api 밖에 있으므로 ExControllerAdvice 가 적용되지 않는다.
+  따라서 여기서 던진 예외는 ResponseStatusExceptionResolver, MyHandlerExceptionResolver, UserHandlerExceptionResolver 까지 내려간다.
+- 워밍업 토큰이 없는 요청에는 404 를 돌려준다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class WarmUpController {
+
+    private final WarmUpRequests warmUpRequests;
+
+    @GetMapping("/warm-up/response-status")
+    public String responseStatus(HttpServletRequest request) {
+        check(request);
+        throw new BadRequestException();   // ResponseStatusExceptionResolver --> sendError(400) --> /error
+    }
+
+    @GetMapping("/warm-up/illegal-argument")
+    public String illegalArgument(HttpServletRequest request) {
+        check(request);
+        throw new IllegalArgumentException("warm-up");   // MyHandlerExceptionResolver
+    }
+
+    @GetMapping("/warm-up/user-ex")
+    public String userException(HttpServletRequest request) {
+        check(request);
+        throw new UserException("warm-up");   // UserHandlerExceptionResolver
+    }
+
+    private void check(HttpServletRequest request) {
+        if (!warmUpRequests.isWarmUp(request)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package hello.exception.warmup;
+
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.UUID;
+
+
+/*
+워밍업 요청 식별
+- 워밍업 요청은 시작할 때마다 새로 만든 토큰을 헤더에 담아 보낸다.
+- 토큰이 맞는 요청만 WarmUpController 를 호출할 수 있고, 오류 응답 예산(ErrorBudget)도 소비하지 않는다.
+ */
+@Component
+public class WarmUpRequests {
+
+    public static final String HEADER = "X-Warm-Up";
+
+    private final String token = UUID.randomUUID().toString();
+
+    public String getToken() {
+        return token;
+    }
+
+    public boolean isWarmUp(HttpServletRequest request) {
+        return token.equals(request.getHeader(HEADER));
+    }
+}
@@ -0,0 +1,81 @@
+package hello.exception.exhandler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.exception.exception.UserException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorCodeRegistryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ErrorCodeRegistry registry = registry();
+
+    @Test
+    void mapsNearestRegisteredType() {
+        assertThat(registry.codeOf(new IllegalArgumentException())).isEqualTo(ErrorCode.BAD);
+        assertThat(registry.codeOf(new NumberFormatException())).isEqualTo(ErrorCode.BAD);
+        assertThat(registry.codeOf(new UserException())).isEqualTo(ErrorCode.USER_EX);
+        assertThat(registry.codeOf(new IllegalStateException())).isEqualTo(ErrorCode.EX);
+        assertThat(registry.codeOf(new HttpRequestMethodNotSupportedException("PATCH"))).isEqualTo(ErrorCode.METHOD_NOT_ALLOWED);
+    }
+
+    @Test
+    void mapsStatusWithoutException() {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            if (errorCode != ErrorCode.USER_EX && errorCode != ErrorCode.BAD_INPUT) {
+                assertThat(registry.codeOf(errorCode.getStatus().value())).isEqualTo(errorCode);
+            }
+        }
+        assertThat(registry.codeOf(418)).isEqualTo(ErrorCode.BAD);
+        assertThat(registry.codeOf(503)).isEqualTo(ErrorCode.EX);
+    }
+
+    @Test
+    void customizerOverridesMapping() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("customizer",
+                (ErrorCodeCustomizer) mappings -> mappings.put(NumberFormatException.class, ErrorCode.BAD_INPUT));
+        ErrorCodeRegistry customized = new ErrorCodeRegistry(new StaticMessageSource(),
+                beanFactory.getBeanProvider(ErrorCodeCustomizer.class));
+
+        assertThat(customized.codeOf(new NumberFormatException())).isEqualTo(ErrorCode.BAD_INPUT);
+        assertThat(customized.codeOf(new IllegalArgumentException())).isEqualTo(ErrorCode.BAD);
+    }
+
+    // 미리 만든 JSON 조각은 Jackson 이 만든 것과 같은 내용이어야 한다.
+    @Test
+    void jsonMatchesJackson() throws Exception {
+        ErrorResultJsonConverter converter = new ErrorResultJsonConverter(registry);
+        for (String message : new String[]{"내부 오류", "따옴표 \" 역슬래시 \\ 줄바꿈 \n 탭 \t", null, "잘못된 입력 값",
+                "ascii only", "2바이트 é ß, 4바이트 \uD83D\uDE00", "\u0000\u001F"}) {
+            for (ErrorCode errorCode : ErrorCode.values()) {
+                ErrorResult errorResult = ErrorResult.of(errorCode, message);
+                assertThat(objectMapper.readTree(converter.encode(errorResult)))
+                        .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(errorResult)));
+                // 바로 UTF-8 로 쓰는 경로와 문자열로 만드는 경로는 바이트까지 같다.
+                assertThat(registry.json(errorCode, message)).isEqualTo(ErrorCodeRegistry.json(errorCode.getCode(), message));
+            }
+            ErrorResult plain = new ErrorResult("CUSTOM", message);
+            assertThat(objectMapper.readTree(converter.encode(plain)))
+                    .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(plain)));
+        }
+    }
+
+    @Test
+    void defaultMessageUsesPrecomputedBody() {
+        byte[] first = registry.json(ErrorCode.EX, registry.message(ErrorCode.EX));
+        assertThat(registry.json(ErrorCode.EX, "내부 오류")).isSameAs(first);
+    }
+
+    private static ErrorCodeRegistry registry() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("error.code.EX", Locale.getDefault(), "내부 오류");
+        return new ErrorCodeRegistry(messageSource, new DefaultListableBeanFactory().getBeanProvider(ErrorCodeCustomizer.class));
+    }
+}
@@ -0,0 +1,43 @@
+package hello.exception.exhandler;
+
+import hello.exception.negotiation.ErrorFormat;
+import hello.exception.warmup.WarmUpRequests;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+UserHandlerExceptionResolver 는 JSON 이든 CBOR, Smile 이든 같은 code, message 를 보내야 한다.
+- /warm-up/user-ex 는 ExControllerAdvice 밖이므로 UserHandlerExceptionResolver 가 직접 body 를 쓴다. (워밍업 토큰 필요)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ErrorResultClientTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    WarmUpRequests warmUpRequests;
+
+    @ParameterizedTest
+    @EnumSource(value = ErrorFormat.class, names = {"JSON", "CBOR", "SMILE"})
+    void everyFormatCarriesTheSameErrorResult(ErrorFormat format) throws Exception {
+        ErrorResultClient client = new ErrorResultClient(HttpClient.newHttpClient(), format);
+
+        HttpResponse<byte[]> response = client.get(URI.create("http://localhost:" + port + "/warm-up/user-ex"),
+                WarmUpRequests.HEADER, warmUpRequests.getToken());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.headers().firstValue("Content-Type")).get().asString()
+                .startsWith(ErrorResultCodec.contentType(format));
+        assertThat(ErrorResultClient.errorOf(response)).isEqualTo(new ErrorResult("USER-EX", "warm-up"));
+    }
+}
@@ -0,0 +1,109 @@
+package hello.exception.exhandler.advice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import hello.exception.exhandler.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+입력 값 오류는 한 번의 디스패치로 끝나야 한다.
+- MockMvc 는 sendError 후의 ERROR 디스패치를 하지 않으므로 실제 톰캣(RANDOM_PORT)으로 요청한다.
+- ERROR 디스패치에만 걸리는 필터로 /error 재요청 횟수를 센다.
+  대조군: /error-404 (sendError(404)) 는 한 번 센다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "error.warmup.enabled=false")
+class ValidationControllerAdviceTest {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    AtomicInteger errorDispatches;
+
+    @BeforeEach
+    void setUp() {
+        errorDispatches.set(0);
+    }
+
+    @Test
+    void typeMismatch() {
+        ResponseEntity<JsonNode> response = get("/api/default-handler-ex?data=qqq");
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(400);
+        assertThat(errorDispatches).hasValue(0);
+        assertThat(response.getBody().path("code").asText()).isEqualTo(ErrorCode.BAD_INPUT.getCode());
+        assertThat(response.getBody().path("errors").path(0).path("field").asText()).isEqualTo("data");
+        assertThat(response.getBody().path("errors").path(0).path("rejectedValue").asText()).isEqualTo("qqq");
+    }
+
+    @Test
+    void missingParameter() {
+        ResponseEntity<JsonNode> response = get("/api/default-handler-ex");
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(400);
+        assertThat(errorDispatches).hasValue(0);
+        assertThat(response.getBody().path("errors").path(0).path("field").asText()).isEqualTo("data");
+    }
+
+    @Test
+    void beanValidation() {
+        ResponseEntity<JsonNode> response = get("/api/validation-ex?memberId=&age=abc");
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(400);
+        assertThat(errorDispatches).hasValue(0);
+        assertThat(response.getBody().path("code").asText()).isEqualTo(ErrorCode.BAD_INPUT.getCode());
+        assertThat(response.getBody().path("errors")).hasSize(2);
+    }
+
+    @Test
+    void sendErrorIsCountedAsErrorDispatch() {
+        ResponseEntity<JsonNode> response = get("/error-404");
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(404);
+        assertThat(errorDispatches).hasValue(1);
+    }
+
+    private ResponseEntity<JsonNode> get(String url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class);
+    }
+
+    @TestConfiguration
+    static class ErrorDispatchCounter {
+
+        @Bean
+        AtomicInteger errorDispatches() {
+            return new AtomicInteger();
+        }
+
+        @Bean
+        FilterRegistrationBean<Filter> errorDispatchCounterFilter(AtomicInteger errorDispatches) {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                errorDispatches.incrementAndGet();
+                chain.doFilter(request, response);
+            });
+            registration.setDispatcherTypes(DispatcherType.ERROR);
+            registration.addUrlPatterns("/*");
+            return registration;
+        }
+    }
+}
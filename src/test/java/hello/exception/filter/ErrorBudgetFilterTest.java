@@ -0,0 +1,194 @@
+package hello.exception.filter;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeCustomizer;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.memory.MemoryPressureMonitor;
+import hello.exception.warmup.WarmUpRequests;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorBudgetFilterTest {
+
+    private final ErrorBudget errorBudget = new ErrorBudget(1000, 1000, 1000, 1000, 100);
+    private final MemoryPressureMonitor memoryPressureMonitor = new MemoryPressureMonitor(false, 0.9, 0.75, event -> {
+    });
+    private final ErrorCodeRegistry errorCodeRegistry = registry();
+    private final ErrorJournal errorJournal = new ErrorJournal(true, 16, 16);
+    private final ErrorLogGovernor errorLogGovernor = new ErrorLogGovernor(1000, 1000, 60_000);
+    private final Logger logger = (Logger) LoggerFactory.getLogger(ErrorBudgetFilter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        errorLogGovernor.destroy();
+    }
+
+    @Test
+    void sendErrorIsForwardedWhileBudgetRemains() throws Exception {
+        ErrorBudgetFilter filter = filter(errorBudget, new WarmUpRequests(), false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-404"), response, sendError(404));
+
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(response.getErrorMessage()).isEqualTo("not found");
+    }
+
+    @Test
+    void exhaustedBudgetAnswersWithoutRedispatch() throws Exception {
+        ErrorBudget oneError = new ErrorBudget(0.001, 1, 1000, 1000, 100);
+        ErrorBudgetFilter filter = filter(oneError, new WarmUpRequests(), false);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-404"), first, sendError(404));
+        assertThat(first.getErrorMessage()).isEqualTo("not found");
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-404"), second, sendError(404));
+        assertThat(second.getStatus()).isEqualTo(404);
+        assertThat(second.getErrorMessage()).isNull();   // sendError 를 호출하지 않았다. (ERROR 재요청 없음)
+        assertThat(second.getContentAsString()).isEqualTo("{\"status\":404}");
+        assertThat(second.getHeader(ErrorBudgetFilter.BUDGET_HEADER)).isEqualTo(ErrorBudgetFilter.EXHAUSTED);
+
+        MockHttpServletResponse exception = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-ex"), exception, (request, res) -> {
+            throw new RuntimeException("예외 발생!");
+        });
+        assertThat(exception.getStatus()).isEqualTo(500);
+        assertThat(exception.getContentAsString()).isEqualTo("{\"status\":500}");
+
+        // 예산 초과로 삼킨 예외는 스택 트레이스 없이 클래스 이름 한 줄만 남긴다.
+        assertThat(appender.list).filteredOn(event -> event.getFormattedMessage().contains("uncaught"))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getThrowableProxy()).isNull();
+                    assertThat(event.getFormattedMessage()).contains(RuntimeException.class.getName());
+                });
+
+        // 직접 쓴 응답도 집계, 오류 기록에 남는다. (첫 요청은 sendError 로 넘겼으므로 ErrorPageController 몫)
+        assertThat(errorCodeRegistry.getCount(ErrorCode.NOT_FOUND)).isEqualTo(1);
+        assertThat(errorCodeRegistry.getCount(ErrorCode.EX)).isEqualTo(1);
+        assertThat(errorJournal.getWritten()).isEqualTo(2);
+    }
+
+    @Test
+    void warmUpRequestsDoNotConsumeBudget() throws Exception {
+        ErrorBudget oneError = new ErrorBudget(0.001, 1, 1000, 1000, 100);
+        WarmUpRequests warmUpRequests = new WarmUpRequests();
+        ErrorBudgetFilter filter = filter(oneError, warmUpRequests, false);
+
+        MockHttpServletRequest warmUp = new MockHttpServletRequest("GET", "/error-404");
+        warmUp.addHeader(WarmUpRequests.HEADER, warmUpRequests.getToken());
+        filter.doFilter(warmUp, new MockHttpServletResponse(), sendError(404));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-404"), response, sendError(404));
+        assertThat(response.getErrorMessage()).isEqualTo("not found");
+    }
+
+    @Test
+    void keepAliveModeWritesPreSizedBody() throws Exception {
+        ErrorBudgetFilter filter = filter(errorBudget, new WarmUpRequests(), true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-404"), response, sendError(404));
+
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(response.getErrorMessage()).isNull();   // sendError 를 호출하지 않았다. (ERROR 재요청 없음)
+        assertThat(response.getContentAsString()).isEqualTo("{\"code\":\"NOT-FOUND\",\"message\":\"not found\"}");
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(response.getHeader(ErrorBudgetFilter.BUDGET_HEADER)).isNull();
+        assertThat(errorCodeRegistry.getCount(ErrorCode.NOT_FOUND)).isEqualTo(1);
+        assertThat(errorJournal.getWritten()).isEqualTo(1);
+    }
+
+    @Test
+    void keepAliveModeUsesPrecomputedBodyForDefaultMessage() throws Exception {
+        ErrorBudgetFilter filter = filter(errorBudget, new WarmUpRequests(), true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-400"), response,
+                (request, res) -> ((HttpServletResponse) res).sendError(400));
+
+        assertThat(response.getContentAsByteArray())
+                .isEqualTo(errorCodeRegistry.json(ErrorCode.BAD, errorCodeRegistry.message(ErrorCode.BAD)));
+    }
+
+    @Test
+    void keepAliveModeAnswersUncaughtException() throws Exception {
+        ErrorBudgetFilter filter = filter(errorBudget, new WarmUpRequests(), true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/error-ex"), response, (request, res) -> {
+            throw new IllegalArgumentException("예외 발생!");
+        });
+
+        assertThat(response.getStatus()).isEqualTo(500);
+        // 예외 메시지는 내보내지 않고 오류 코드의 기본 메시지를 쓴다.
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("{\"code\":\"BAD\",\"message\":\"잘못된 입력 값\"}");
+        assertThat(errorCodeRegistry.getCount(ErrorCode.BAD)).isEqualTo(1);
+        assertThat(appender.list).singleElement()
+                .satisfies(event -> assertThat(event.getThrowableProxy()).isNotNull());   // keep-alive 모드는 스택 트레이스를 남긴다.
+        List<String> classNames = new ArrayList<>();
+        errorJournal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) ->
+                classNames.add(errorJournal.exceptionClassName(classId)));
+        assertThat(classNames).containsExactly(IllegalArgumentException.class.getName());
+    }
+
+    @Test
+    void alreadyJournaledErrorIsNotCountedTwice() throws Exception {
+        ErrorBudgetFilter filter = filter(errorBudget, new WarmUpRequests(), true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/bad");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            errorJournal.record((MockHttpServletRequest) req, null, ErrorCode.BAD);
+            ((HttpServletResponse) res).sendError(400, "bad");
+        });
+
+        assertThat(errorCodeRegistry.getCount(ErrorCode.BAD)).isZero();
+        assertThat(errorJournal.getWritten()).isEqualTo(1);
+    }
+
+    private FilterChain sendError(int status) {
+        return (request, response) -> ((HttpServletResponse) response).sendError(status, "not found");
+    }
+
+    private ErrorBudgetFilter filter(ErrorBudget errorBudget, WarmUpRequests warmUpRequests, boolean keepAlive) {
+        return new ErrorBudgetFilter(errorBudget, warmUpRequests, keepAlive, memoryPressureMonitor,
+                errorCodeRegistry, errorJournal, errorLogGovernor);
+    }
+
+    private static ErrorCodeRegistry registry() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("error.code.BAD", Locale.getDefault(), "잘못된 입력 값");
+        return new ErrorCodeRegistry(messageSource, new DefaultListableBeanFactory().getBeanProvider(ErrorCodeCustomizer.class));
+    }
+}
@@ -0,0 +1,57 @@
+package hello.exception.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorBudgetTest {
+
+    @Test
+    void exhaustedRouteDoesNotChargeClient() {
+        // 클라이언트 버킷 2, 경로 버킷 1 (refill 은 테스트 시간 동안 없다고 봐도 된다.)
+        ErrorBudget budget = new ErrorBudget(0.001, 2, 0.001, 1, 100);
+
+        assertThat(budget.tryConsume("client", "/flooded")).isTrue();
+        assertThat(budget.tryConsume("client", "/flooded")).isFalse();   // 경로 예산 바닥
+        assertThat(budget.tryConsume("client", "/flooded")).isFalse();
+
+        // 위에서 거절된 요청들이 클라이언트 토큰을 쓰지 않았으므로 다른 경로에는 아직 한 번 남아 있다.
+        assertThat(budget.tryConsume("client", "/other")).isTrue();
+        assertThat(budget.tryConsume("client", "/another")).isFalse();
+    }
+
+    @Test
+    void bucketCountIsBoundedUnderConcurrentUniqueKeys() throws Exception {
+        int maxBuckets = 64;
+        ErrorBudget budget = new ErrorBudget(1000, 10, 1000, 10, maxBuckets);
+        AtomicInteger observedMax = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        budget.tryConsume("c-" + thread + "-" + i, "/r-" + thread + "-" + i);
+                        observedMax.accumulateAndGet(budget.maxSize(), Math::max);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(observedMax.get()).isLessThanOrEqualTo(maxBuckets);
+        assertThat(budget.maxSize()).isLessThanOrEqualTo(maxBuckets);
+    }
+}
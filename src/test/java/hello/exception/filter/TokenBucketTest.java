@@ -0,0 +1,33 @@
+package hello.exception.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstThenRefill() {
+        long now = 1_000L;
+        TokenBucket bucket = new TokenBucket(1, 2, now);
+
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isFalse();
+
+        assertThat(bucket.tryAcquire(now + SECOND)).isTrue();
+        assertThat(bucket.tryAcquire(now + SECOND)).isFalse();
+    }
+
+    @Test
+    void fullAfterIdle() {
+        long now = -5 * SECOND;   // nanoTime 은 음수일 수 있다.
+        TokenBucket bucket = new TokenBucket(10, 5, now);
+
+        bucket.tryAcquire(now);
+        assertThat(bucket.isFull(now)).isFalse();
+        assertThat(bucket.isFull(now + SECOND)).isTrue();
+    }
+}
@@ -0,0 +1,38 @@
+package hello.exception.interceptor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DebugEndpointInterceptorTest {
+
+    @Test
+    void disabledWithoutToken() throws Exception {
+        MockHttpServletRequest request = request("anything");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(new DebugEndpointInterceptor("").preHandle(request, response, null)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void requiresMatchingToken() throws Exception {
+        DebugEndpointInterceptor interceptor = new DebugEndpointInterceptor("s3cret");
+
+        MockHttpServletResponse wrong = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("guess"), wrong, null)).isFalse();
+        assertThat(wrong.getStatus()).isEqualTo(404);
+
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/debug/slow-requests"),
+                new MockHttpServletResponse(), null)).isFalse();
+        assertThat(interceptor.preHandle(request("s3cret"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/debug/slow-requests");
+        request.addHeader(DebugEndpointInterceptor.HEADER, token);
+        return request;
+    }
+}
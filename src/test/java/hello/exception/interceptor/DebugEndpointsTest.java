@@ -0,0 +1,28 @@
+package hello.exception.interceptor;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// WebConfig 가 모든 /debug 엔드포인트에 DebugEndpointInterceptor 를 거는지 확인한다.
+@SpringBootTest(properties = {"error.warmup.enabled=false", "debug.endpoints.token=s3cret"})
+@AutoConfigureMockMvc
+class DebugEndpointsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/debug/slow-requests", "/debug/error-journal"})
+    void hiddenWithoutToken(String path) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isNotFound());
+        mockMvc.perform(get(path).header(DebugEndpointInterceptor.HEADER, "guess")).andExpect(status().isNotFound());
+        mockMvc.perform(get(path).header(DebugEndpointInterceptor.HEADER, "s3cret")).andExpect(status().isOk());
+    }
+}
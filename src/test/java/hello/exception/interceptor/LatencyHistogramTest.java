@@ -0,0 +1,71 @@
+package hello.exception.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketUpperBoundCoversTheValueWithinAQuarter() {
+        for (long nanos = 1; nanos < TimeUnit.SECONDS.toNanos(100); nanos = nanos * 3 + 1) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(nanos));
+            assertThat(upper).isGreaterThan(nanos);
+            assertThat(upper).isLessThanOrEqualTo(nanos + nanos / 4 + 1);
+        }
+        assertThat(LatencyHistogram.bucketOf(-5)).isZero();
+        assertThat(LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void nothingIsSlowBeforeTheFirstThousandSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(1_000_000);
+        }
+        assertThat(histogram.getP99Nanos()).isEqualTo(Long.MAX_VALUE);
+
+        histogram.record(1_000_000);
+        assertThat(histogram.getP99Nanos()).isBetween(1_000_000L, 1_250_000L);
+    }
+
+    @Test
+    void p99FollowsTheSlowestPercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1_000; i++) {
+            histogram.record(i < 980 ? 1_000_000 : 100_000_000);
+        }
+        assertThat(histogram.getP99Nanos()).isBetween(100_000_000L, 125_000_000L);
+    }
+
+    @Test
+    void decayLetsNewLatenciesTakeOver() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1_000; i++) {
+            histogram.record(100_000_000);   // 기동 직후 느린 요청
+        }
+        for (int round = 0; round < 4; round++) {
+            histogram.decay();
+        }
+        for (int i = 0; i < 1_000; i++) {
+            histogram.record(1_000_000);
+        }
+        // 느린 요청 1000 건이 62 건으로 줄었지만 1062 건 중 1% 가 넘으므로 p99 는 아직 느린 쪽이다.
+        assertThat(histogram.getP99Nanos()).isGreaterThanOrEqualTo(100_000_000L);
+
+        histogram.decay();
+        histogram.decay();
+        for (int i = 0; i < 1_000; i++) {
+            histogram.record(1_000_000);
+        }
+        assertThat(histogram.getP99Nanos()).isGreaterThanOrEqualTo(100_000_000L);   // 15 / 1265
+
+        histogram.decay();
+        for (int i = 0; i < 1_000; i++) {
+            histogram.record(1_000_000);
+        }
+        assertThat(histogram.getP99Nanos()).isBetween(1_000_000L, 1_250_000L);   // 7 / 1632
+    }
+}
@@ -0,0 +1,73 @@
+package hello.exception.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowRequestReservoirTest {
+
+    private static final long WINDOW_MILLIS = 60_000;
+    private static final long MILLI = 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final SlowRequestReservoir reservoir = new SlowRequestReservoir(4, 3, WINDOW_MILLIS, clock::get);
+
+    @Test
+    void keepsTheSlowestInTheWindow() {
+        for (long millis : new long[]{5, 1, 9, 3, 7, 2, 8}) {
+            reservoir.captureSlow(sample("/" + millis, millis * MILLI));
+        }
+
+        assertThat(reservoir.getSlowest()).extracting(RequestSample::getUri).containsExactly("/9", "/8", "/7", "/5");
+        assertThat(reservoir.isSlow(4 * MILLI)).isFalse();   // floor(5ms) 보다 빠르다.
+    }
+
+    @Test
+    void usesP99OfRecentLatencies() {
+        for (int i = 0; i < 1_000; i++) {
+            reservoir.recordLatency(MILLI);
+        }
+
+        assertThat(reservoir.isSlow(MILLI / 2)).isFalse();
+        assertThat(reservoir.isSlow(10 * MILLI)).isTrue();
+    }
+
+    @Test
+    void coldStartOutliersDoNotBlockLaterWindows() {
+        for (int i = 0; i < 1_000; i++) {
+            reservoir.recordLatency(MILLI);
+        }
+        for (int i = 0; i < 4; i++) {
+            reservoir.captureSlow(sample("/cold-" + i, (1_000 + i) * MILLI));   // 기동 직후 1초씩 걸린 요청
+        }
+        assertThat(reservoir.isSlow(50 * MILLI)).isFalse();
+
+        clock.addAndGet(WINDOW_MILLIS);
+        assertThat(reservoir.isSlow(50 * MILLI)).isTrue();
+        reservoir.captureSlow(sample("/steady", 50 * MILLI));
+        // 조회는 직전 창(기동 직후)과 합쳐서 느린 순서로 4 개다.
+        assertThat(reservoir.getSlowest()).extracting(RequestSample::getUri).doesNotContain("/steady");
+
+        clock.addAndGet(WINDOW_MILLIS);
+        assertThat(reservoir.getSlowest()).extracting(RequestSample::getUri).containsExactly("/steady");
+
+        clock.addAndGet(WINDOW_MILLIS);
+        assertThat(reservoir.getSlowest()).isEmpty();
+    }
+
+    @Test
+    void recentErrorsAreNewestFirstAndBounded() {
+        for (int i = 0; i < 5; i++) {
+            reservoir.captureError(sample("/error-" + i, MILLI));
+        }
+
+        assertThat(reservoir.getRecentErrors()).extracting(RequestSample::getUri)
+                .containsExactly("/error-4", "/error-3", "/error-2");
+    }
+
+    private static RequestSample sample(String uri, long durationNanos) {
+        return new RequestSample(0, uri, "handler", "REQUEST", 500, durationNanos, null);
+    }
+}
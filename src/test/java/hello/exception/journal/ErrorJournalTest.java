@@ -0,0 +1,203 @@
+package hello.exception.journal;
+
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.trace.RequestTrace;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorJournalTest {
+
+    @Test
+    void keepsOnlyTheLastCapacityRecords() {
+        ErrorJournal journal = new ErrorJournal(true, 4, 16);
+        for (int i = 0; i < 6; i++) {
+            journal.append(i, "/api/members/{id}", IllegalArgumentException.class, 1, 400 + i);
+        }
+
+        List<Long> requestIds = new ArrayList<>();
+        long next = journal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) -> {
+            requestIds.add(requestId);
+            assertThat(status).isEqualTo(400 + (int) requestId);
+            assertThat(codeId).isEqualTo(1);
+            assertThat(journal.uri(uriId)).isEqualTo("/api/members/{id}");
+            assertThat(journal.exceptionClassName(classId)).isEqualTo(IllegalArgumentException.class.getName());
+        });
+
+        assertThat(requestIds).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(next).isEqualTo(6);
+    }
+
+    @Test
+    void dictionaryOverflowMapsToNone() {
+        ErrorJournal journal = new ErrorJournal(true, 8, 1);
+        journal.append(1, "/a", null, 0, 500);
+        journal.append(2, "/b", null, 0, 500);
+
+        List<String> uris = new ArrayList<>();
+        journal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) -> uris.add(journal.uri(uriId)));
+
+        assertThat(uris).containsExactly("/a", null);
+    }
+
+    @Test
+    void concurrentProducers() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ErrorJournal journal = new ErrorJournal(true, threads * perThread, 16);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    journal.append(base + i + 1, "/api/members/{id}", RuntimeException.class, 0, 500);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Set<Long> requestIds = new HashSet<>();
+        journal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) -> requestIds.add(requestId));
+        assertThat(requestIds).hasSize(threads * perThread);
+    }
+
+    // 버퍼를 계속 덮어쓰는 동안 읽어도 필드가 섞인 기록은 보이지 않는다. (모든 필드는 requestId 에서 나온다.)
+    @Test
+    void lappingProducersNeverExposeTornRecords() throws Exception {
+        int threads = 4;
+        int perThread = 200_000;
+        ErrorJournal journal = new ErrorJournal(true, 4, 16);
+        String[] uris = {"/a", "/b", "/c"};
+        Class<?>[] classes = {IllegalStateException.class, IllegalArgumentException.class};
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong visited = new AtomicLong();
+        List<String> torn = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                journal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) -> {
+                    visited.incrementAndGet();
+                    boolean consistent = status == 400 + (int) (requestId % 100)
+                            && codeId == (int) (requestId % 7)
+                            && uris[(int) (requestId % uris.length)].equals(journal.uri(uriId))
+                            && classes[(int) (requestId % classes.length)].getName().equals(journal.exceptionClassName(classId));
+                    if (!consistent && torn.size() < 10) {
+                        torn.add(seq + ": requestId=" + requestId + " status=" + status + " codeId=" + codeId);
+                    }
+                });
+            }
+        });
+        reader.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                for (long requestId = base; requestId < base + perThread; requestId++) {
+                    journal.append(requestId, uris[(int) (requestId % uris.length)], classes[(int) (requestId % classes.length)],
+                            (int) (requestId % 7), 400 + (int) (requestId % 100));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        done.set(true);
+        reader.join();
+
+        assertThat(torn).isEmpty();
+        assertThat(visited.get()).isPositive();
+        assertThat(journal.getWritten()).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void recordsEachRequestOnce() {
+        ErrorJournal journal = new ErrorJournal(true, 16, 16);
+        MockHttpServletRequest traced = new MockHttpServletRequest("GET", "/api/members/ex");
+        RequestTrace trace = new RequestTrace("/api/members/ex");
+        traced.setAttribute(RequestTrace.ATTRIBUTE, trace);
+        MockHttpServletRequest untraced = new MockHttpServletRequest("GET", "/no-trace");
+
+        journal.record(traced, new RuntimeException(), ErrorCode.EX);
+        journal.record(traced, new RuntimeException(), ErrorCode.EX);   // ERROR 디스패치에서 다시
+        journal.record(untraced, null, ErrorCode.NOT_FOUND);
+        journal.record(untraced, null, ErrorCode.NOT_FOUND);
+
+        assertThat(journal.getWritten()).isEqualTo(2);
+        assertThat(journal.isRecorded(traced)).isTrue();
+        assertThat(traced.getAttribute(ErrorJournal.RECORDED)).isNull();   // trace 가 있으면 attribute 를 넣지 않는다.
+        assertThat(journal.isRecorded(untraced)).isTrue();
+    }
+
+    // 요청 처리 경로(record)도 힙에 객체를 만들지 않는다. trace 는 TraceFilter 가 요청마다 만드는 것이므로 미리 만들어 둔다.
+    @Test
+    void recordDoesNotAllocate() {
+        ErrorJournal journal = new ErrorJournal(true, 1 << 16, 16);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/ex");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/members/{id}");
+        IllegalArgumentException ex = new IllegalArgumentException("잘못된 입력 값");
+
+        int count = 100_000;
+        RequestTrace[] traces = new RequestTrace[count];
+        for (int i = 0; i < count; i++) {
+            traces[i] = new RequestTrace("/api/members/ex");
+        }
+        for (int i = 0; i < count; i++) {   // 워밍업 (JIT, 사전 등록)
+            request.setAttribute(RequestTrace.ATTRIBUTE, new RequestTrace("/api/members/ex"));
+            journal.record(request, ex, ErrorCode.BAD);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            request.setAttribute(RequestTrace.ATTRIBUTE, traces[i]);   // 같은 키를 바꾸므로 할당 없음
+            journal.record(request, ex, ErrorCode.BAD);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(journal.getWritten()).isEqualTo(2L * count);
+        assertThat(allocated).isLessThan(count);
+    }
+
+    // 기록할 때 힙에 객체를 만들지 않는다. (기록 하나당 1바이트 미만)
+    @Test
+    void appendDoesNotAllocate() {
+        ErrorJournal journal = new ErrorJournal(true, 1 << 16, 16);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < 200_000; i++) {
+            journal.append(i, "/api/members/{id}", IllegalArgumentException.class, 1, 400);
+        }
+
+        int count = 1_000_000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            journal.append(i, "/api/members/{id}", IllegalArgumentException.class, 1, 400);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(allocated).isLessThan(count);
+    }
+}
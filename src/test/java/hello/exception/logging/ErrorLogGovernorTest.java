@@ -0,0 +1,126 @@
+package hello.exception.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import hello.exception.memory.MemoryPressureEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.RequestDispatcher;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorLogGovernorTest {
+
+    // window 를 길게 잡아서 스케줄러 대신 테스트가 evaluate 를 직접 호출한다.
+    private final ErrorLogGovernor governor = new ErrorLogGovernor(10, 2, 60_000);
+    private final Logger logger = (Logger) LoggerFactory.getLogger(ErrorLogGovernor.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/ex");
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        governor.destroy();
+    }
+
+    @Test
+    void quietAboveThresholdThenRestoreBelow() {
+        record(LogCategory.ERROR_PAGE, 60 * 11);   // 11/s
+        governor.evaluate();
+        assertThat(governor.verbose(LogCategory.ERROR_PAGE, request, null)).isFalse();
+        assertThat(governor.isQuiet(LogCategory.USER_RESOLVER)).isFalse();
+
+        record(LogCategory.ERROR_PAGE, 60 * 5);    // 5/s, restore-below(2) 보다 높으므로 그대로 요약 모드
+        governor.evaluate();
+        assertThat(governor.isQuiet(LogCategory.ERROR_PAGE)).isTrue();
+
+        record(LogCategory.ERROR_PAGE, 60);        // 1/s
+        governor.evaluate();
+        assertThat(governor.isQuiet(LogCategory.ERROR_PAGE)).isFalse();
+    }
+
+    @Test
+    void quietWindowLogsOneSampleWithClassMessageAndRoute() {
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/members/{id}");
+        record(LogCategory.CONTROLLER_ADVICE, 60 * 11);
+        governor.evaluate();
+        appender.list.clear();
+
+        governor.verbose(LogCategory.CONTROLLER_ADVICE, request, new IllegalStateException("first"));
+        governor.verbose(LogCategory.CONTROLLER_ADVICE, request, new IllegalArgumentException("second"));
+        record(LogCategory.CONTROLLER_ADVICE, 60 * 11);
+        governor.evaluate();
+
+        List<String> samples = sampled();
+        assertThat(samples).containsExactly(
+                "[CONTROLLER_ADVICE] sampled error: java.lang.IllegalStateException: first route=/api/members/{id}");
+
+        // 다음 window 는 새 표본을 받는다.
+        appender.list.clear();
+        governor.verbose(LogCategory.CONTROLLER_ADVICE, request, new IllegalArgumentException("second"));
+        governor.evaluate();
+        assertThat(sampled()).containsExactly(
+                "[CONTROLLER_ADVICE] sampled error: java.lang.IllegalArgumentException: second route=/api/members/{id}");
+    }
+
+    @Test
+    void errorDispatchSampleUsesOriginalUri() {
+        MockHttpServletRequest errorRequest = new MockHttpServletRequest("GET", "/error-page/404");
+        errorRequest.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, "/no-such-page");
+        record(LogCategory.ERROR_PAGE, 60 * 11);
+        governor.evaluate();
+        appender.list.clear();
+
+        governor.verbose(LogCategory.ERROR_PAGE, errorRequest, null);
+        governor.evaluate();
+
+        assertThat(sampled()).containsExactly("[ERROR_PAGE] sampled error: -: null route=/no-such-page");
+    }
+
+    @Test
+    void verboseModeTakesNoSample() {
+        governor.verbose(LogCategory.VALIDATION, request, new IllegalStateException("verbose"));
+        governor.evaluate();
+
+        assertThat(sampled()).isEmpty();
+    }
+
+    @Test
+    void memoryPressureSuspendsEveryCategoryUntilCleared() {
+        governor.onMemoryPressure(new MemoryPressureEvent(true, 0.95));
+        governor.evaluate();   // window 판단이 suspended 상태를 지우지 않는다.
+        for (LogCategory category : LogCategory.values()) {
+            assertThat(governor.verbose(category, request, null)).isFalse();
+        }
+
+        governor.onMemoryPressure(new MemoryPressureEvent(false, 0.5));
+        assertThat(governor.verbose(LogCategory.CONTROLLER_ADVICE, request, null)).isTrue();
+    }
+
+    private List<String> sampled() {
+        return appender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .filter(message -> message.contains("sampled error"))
+                .collect(Collectors.toList());
+    }
+
+    private void record(LogCategory category, int count) {
+        for (int i = 0; i < count; i++) {
+            governor.verbose(category, request, null);
+        }
+    }
+}
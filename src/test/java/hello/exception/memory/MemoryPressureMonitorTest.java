@@ -0,0 +1,103 @@
+package hello.exception.memory;
+
+import hello.exception.exhandler.ErrorCodeCustomizer;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.filter.ErrorBudget;
+import hello.exception.filter.ErrorBudgetFilter;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.warmup.WarmUpRequests;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemoryPressureMonitorTest {
+
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+
+    @Test
+    void entersAboveEnterRatioAndLeavesBelowExitRatio() {
+        MemoryPressureMonitor monitor = new MemoryPressureMonitor(false, 0.9, 0.75, events::add);
+
+        monitor.update(0.85);
+        assertThat(monitor.isUnderPressure()).isFalse();
+
+        monitor.update(0.92);
+        assertThat(monitor.isUnderPressure()).isTrue();
+
+        monitor.update(0.80);   // exit-ratio 보다 높으므로 그대로 부족 상태
+        assertThat(monitor.isUnderPressure()).isTrue();
+
+        monitor.update(0.70);
+        assertThat(monitor.isUnderPressure()).isFalse();
+
+        assertThat(events).hasSize(2);
+        assertThat(((MemoryPressureEvent) events.get(0)).isUnderPressure()).isTrue();
+        assertThat(((MemoryPressureEvent) events.get(1)).isUnderPressure()).isFalse();
+    }
+
+    /*
+    실제 GC 알림으로 전환되는지 확인한다. 힙이 작아야 하므로 기본 test 에서는 제외한다.
+    - 실행: ./gradlew memoryPressureTest (최대 힙 64m)
+    - 힙의 절반 가량을 잡아 두고 GC 가 끝나면 부족 상태가 되는지,
+      잡아 둔 것을 놓고 GC 가 끝나면 풀리는지 본다.
+    - 부족 상태에서는 ErrorBudgetFilter 가 sendError 대신 미리 만든 최소 응답을 쓴다.
+     */
+    @Tag("memory")
+    @Test
+    void switchesUnderInducedAllocationPressure() throws Exception {
+        MemoryPressureMonitor monitor = new MemoryPressureMonitor(true, 0.4, 0.2, events::add);
+        ErrorLogGovernor governor = new ErrorLogGovernor(1000, 1000, 60_000);
+        ErrorBudgetFilter filter = new ErrorBudgetFilter(new ErrorBudget(1000, 1000, 1000, 1000, 100),
+                new WarmUpRequests(), false, monitor,
+                new ErrorCodeRegistry(new StaticMessageSource(), new DefaultListableBeanFactory().getBeanProvider(ErrorCodeCustomizer.class)),
+                new ErrorJournal(true, 16, 16), governor);
+        try {
+            List<byte[]> retained = new ArrayList<>();
+            long target = (long) (Runtime.getRuntime().maxMemory() * 0.55);
+            for (long allocated = 0; allocated < target && !monitor.isUnderPressure(); allocated += 256 * 1024) {
+                retained.add(new byte[256 * 1024]);
+            }
+            System.gc();
+            assertThat(await(monitor::isUnderPressure)).isTrue();
+
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/error-500"), response,
+                    (req, res) -> ((HttpServletResponse) res).sendError(500, "boom"));
+            assertThat(response.getErrorMessage()).isNull();
+            assertThat(response.getContentAsString()).isEqualTo("{\"status\":500}");
+
+            retained.clear();
+            System.gc();
+            assertThat(await(() -> !monitor.isUnderPressure())).isTrue();
+        } finally {
+            monitor.destroy();
+            governor.destroy();
+        }
+    }
+
+    // GC 알림은 별도 스레드에서 비동기로 온다.
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            System.gc();
+            Thread.sleep(50);
+        }
+        return true;
+    }
+}
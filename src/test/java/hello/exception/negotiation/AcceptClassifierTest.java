@@ -0,0 +1,54 @@
+package hello.exception.negotiation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcceptClassifierTest {
+
+    @Test
+    void json() {
+        assertThat(AcceptClassifier.classify("application/json")).isEqualTo(ErrorFormat.JSON);
+        assertThat(AcceptClassifier.classify("application/json;charset=utf-8")).isEqualTo(ErrorFormat.JSON);
+        assertThat(AcceptClassifier.classify("application/json, text/plain, */*")).isEqualTo(ErrorFormat.JSON);
+        assertThat(AcceptClassifier.classify("application/problem+json")).isEqualTo(ErrorFormat.JSON);
+    }
+
+    @Test
+    void html() {
+        assertThat(AcceptClassifier.classify((String) null)).isEqualTo(ErrorFormat.HTML);
+        assertThat(AcceptClassifier.classify("*/*")).isEqualTo(ErrorFormat.HTML);
+        assertThat(AcceptClassifier.classify("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"))
+                .isEqualTo(ErrorFormat.HTML);
+    }
+
+    @Test
+    void randomHeadersDoNotEvictAHotHeader() {
+        String hot = "application/json, text/plain, */*";
+        AcceptClassifier.classify(hot);
+        AcceptClassifier.classify(hot);
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(AcceptClassifier.classify("application/json;v=" + i)).isEqualTo(ErrorFormat.JSON);
+            AcceptClassifier.classify(hot);
+        }
+
+        assertThat(AcceptClassifier.isCached(hot)).isTrue();
+    }
+
+    @Test
+    void coldRandomHeadersAreReplaced() {
+        AcceptClassifier.classify("text/html;random=first");
+        for (int i = 0; i < 100_000; i++) {
+            AcceptClassifier.classify("text/html;random=" + i);
+        }
+
+        assertThat(AcceptClassifier.isCached("text/html;random=first")).isFalse();
+    }
+
+    @Test
+    void text() {
+        assertThat(AcceptClassifier.classify("text/plain")).isEqualTo(ErrorFormat.TEXT);
+        assertThat(AcceptClassifier.classify("application/json;q=0.5, text/plain")).isEqualTo(ErrorFormat.TEXT);
+    }
+}
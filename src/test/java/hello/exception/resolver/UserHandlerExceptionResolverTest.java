@@ -0,0 +1,87 @@
+package hello.exception.resolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.exception.exception.UserException;
+import hello.exception.exhandler.ErrorCode;
+import hello.exception.exhandler.ErrorCodeCustomizer;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.memory.MemoryPressureMonitor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+UserHandlerExceptionResolver 의 응답 형식
+- 예전 응답은 {"ex": 예외 클래스, "message": ...} 였고, 지금은 다른 핸들러와 같은 ErrorResult {"code", "message"} 이다.
+  클라이언트가 보는 형식이 바뀐 것이므로 필드 이름까지 고정해 둔다.
+ */
+class UserHandlerExceptionResolverTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ErrorLogGovernor errorLogGovernor = new ErrorLogGovernor(1000, 1000, 60_000);
+    private final ErrorCodeRegistry errorCodeRegistry = registry();
+    private final UserHandlerExceptionResolver resolver = new UserHandlerExceptionResolver(errorLogGovernor,
+            new ErrorJournal(true, 16, 16), errorCodeRegistry, new MemoryPressureMonitor(false, 0.9, 0.75, event -> {
+    }));
+
+    @AfterEach
+    void tearDown() {
+        errorLogGovernor.destroy();
+    }
+
+    @Test
+    void answersWithErrorResultShape() throws Exception {
+        MockHttpServletResponse response = resolve(new UserException("잘못된 사용자"));
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentType()).startsWith("application/json");
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(body.fieldNames()).toIterable().containsExactly("code", "message");
+        assertThat(body.path("code").asText()).isEqualTo(ErrorCode.USER_EX.getCode());
+        assertThat(body.path("message").asText()).isEqualTo("잘못된 사용자");
+    }
+
+    @Test
+    void usesDefaultMessageWithoutExceptionMessage() throws Exception {
+        MockHttpServletResponse response = resolve(new UserException());
+
+        assertThat(response.getContentAsByteArray())
+                .isEqualTo(errorCodeRegistry.json(ErrorCode.USER_EX, errorCodeRegistry.message(ErrorCode.USER_EX)));
+    }
+
+    @Test
+    void leavesOtherExceptionsToNextResolver() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/ex");
+        request.addHeader("Accept", "application/json");
+
+        assertThat(resolver.resolveException(request, new MockHttpServletResponse(), null, new RuntimeException())).isNull();
+        assertThat(errorCodeRegistry.getCounts().values()).containsOnly(0L);
+    }
+
+    private MockHttpServletResponse resolve(Exception ex) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/user-ex");
+        request.addHeader("Accept", "application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(resolver.resolveException(request, response, null, ex)).isNotNull();
+        assertThat(errorCodeRegistry.getCount(ErrorCode.USER_EX)).isEqualTo(1);
+        return response;
+    }
+
+    private static ErrorCodeRegistry registry() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("error.code.USER-EX", Locale.getDefault(), "사용자 오류");
+        return new ErrorCodeRegistry(messageSource, new DefaultListableBeanFactory().getBeanProvider(ErrorCodeCustomizer.class));
+    }
+}
@@ -0,0 +1,66 @@
+package hello.exception.servlet;
+
+import hello.exception.exhandler.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.RequestDispatcher;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+- WAS 의 ERROR 재요청 없이 /error-page/* 를 직접 요청하면 상태 코드 attribute 가 없다. 모든 형식에서 500 으로 응답해야 한다.
+- WAS 까지 전파된 예외는 Exception 이 아닐 수도 있다. (StackOverflowError, OutOfMemoryError, AssertionError)
+ */
+@SpringBootTest(properties = "error.warmup.enabled=false")
+@AutoConfigureMockMvc
+class ErrorPageControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @ParameterizedTest
+    @CsvSource({
+            "/error-page/404, application/json",
+            "/error-page/500, application/json",
+            "/error-page/500, text/plain",
+            "/error-page/500, text/html"
+    })
+    void directRequestWithoutStatusAnswers500(String path, String accept) throws Exception {
+        mockMvc.perform(get(path).header("Accept", accept)).andExpect(status().isInternalServerError());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"/error-page/404", "/error-page/500"})
+    void directJsonRequestUsesInternalErrorCode(String path) throws Exception {
+        mockMvc.perform(get(path).header("Accept", "application/json"))
+                .andExpect(jsonPath("$.code").value(ErrorCode.EX.getCode()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"application/json", "text/plain", "text/html"})
+    void errorDispatchWithErrorAnswers500(String accept) throws Exception {
+        mockMvc.perform(get("/error-page/500").header("Accept", accept)
+                        .requestAttr(RequestDispatcher.ERROR_STATUS_CODE, 500)
+                        .requestAttr(RequestDispatcher.ERROR_REQUEST_URI, "/error-ex")
+                        .requestAttr(RequestDispatcher.ERROR_EXCEPTION, new StackOverflowError()))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void errorDispatchWithErrorUsesInternalErrorCode() throws Exception {
+        mockMvc.perform(get("/error-page/500").header("Accept", "application/json")
+                        .requestAttr(RequestDispatcher.ERROR_STATUS_CODE, 500)
+                        .requestAttr(RequestDispatcher.ERROR_REQUEST_URI, "/error-ex")
+                        .requestAttr(RequestDispatcher.ERROR_EXCEPTION, new AssertionError("invariant broken")))
+                .andExpect(jsonPath("$.code").value(ErrorCode.EX.getCode()))
+                .andExpect(jsonPath("$.message").value("invariant broken"));
+    }
+}
@@ -0,0 +1,109 @@
+package hello.exception.stacktrace;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactThrowableConverterTest {
+
+    @Test
+    void rendersThrowableCompactly() {
+        LoggerContext context = new LoggerContext();
+        PatternLayout layout = layout(context, "%m%cEx");
+
+        String line = layout.doLayout(event(context, frameworkHeavy()));
+
+        assertThat(line).startsWith("failed" + System.lineSeparator() + "java.lang.IllegalStateException: framework");
+        assertThat(line).contains("\t... 3 framework frames");
+        assertThat(line).doesNotContain("DispatcherServlet");
+    }
+
+    @Test
+    void honoursBudgetOption() {
+        LoggerContext context = new LoggerContext();
+        PatternLayout layout = layout(context, "%cEx{256}");
+        IllegalStateException ex = new IllegalStateException("200 frames");
+        StackTraceElement[] frames = new StackTraceElement[200];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new StackTraceElement("hello.exception.Sample", "method" + i, "Sample.java", i);
+        }
+        ex.setStackTrace(frames);
+
+        String rendered = layout.doLayout(event(context, ex)).substring(System.lineSeparator().length());
+
+        assertThat(rendered.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(256);
+        assertThat(rendered).endsWith("... truncated");
+    }
+
+    @Test
+    void consolePatternUsesCompactConverter() throws JoranException {
+        LoggerContext context = new LoggerContext();
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(getClass().getResource("/logback-spring.xml"));
+
+        ConsoleAppender<?> console = (ConsoleAppender<?>) context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("CONSOLE");
+        PatternLayoutEncoder encoder = (PatternLayoutEncoder) console.getEncoder();
+        String line = encoder.getLayout().doLayout(event(context, frameworkHeavy()));
+
+        assertThat(encoder.getPattern()).contains("%cEx");
+        assertThat(line).contains("\t... 3 framework frames");
+    }
+
+    // logging.file.name, logging.file.path 는 스프링 부트가 LOG_FILE, LOG_PATH 로 넘긴다. (base.xml 과 같은 FILE appender)
+    @Test
+    void fileAppenderFollowsLogFileAndUsesCompactConverter(@TempDir Path dir) throws JoranException {
+        String logFile = dir.resolve("app.log").toString();
+        LoggerContext context = new LoggerContext();
+        context.putProperty("LOG_FILE", logFile);
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(getClass().getResource("/logback-spring.xml"));
+
+        RollingFileAppender<?> file = (RollingFileAppender<?>) context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("FILE");
+        PatternLayoutEncoder encoder = (PatternLayoutEncoder) file.getEncoder();
+
+        assertThat(file.getFile()).isEqualTo(logFile);
+        assertThat(encoder.getPattern()).contains("%cEx");
+        context.stop();
+    }
+
+    private static PatternLayout layout(LoggerContext context, String pattern) {
+        PatternLayout layout = new PatternLayout();
+        layout.getInstanceConverterMap().put("cEx", CompactThrowableConverter.class.getName());
+        layout.setContext(context);
+        layout.setPattern(pattern);
+        layout.start();
+        return layout;
+    }
+
+    private static LoggingEvent event(LoggerContext context, Throwable throwable) {
+        Logger logger = context.getLogger(CompactThrowableConverterTest.class);
+        return new LoggingEvent(Logger.class.getName(), logger, Level.ERROR, "failed", throwable, null);
+    }
+
+    private static IllegalStateException frameworkHeavy() {
+        IllegalStateException ex = new IllegalStateException("framework");
+        ex.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("hello.exception.api.ApiExceptionController", "getMember", "ApiExceptionController.java", 20),
+                new StackTraceElement("org.springframework.web.method.support.InvocableHandlerMethod", "doInvoke", null, 205),
+                new StackTraceElement("org.springframework.web.servlet.DispatcherServlet", "doDispatch", null, 1067),
+                new StackTraceElement("org.apache.catalina.core.ApplicationFilterChain", "doFilter", null, 162),
+        });
+        return ex;
+    }
+}
@@ -0,0 +1,79 @@
+package hello.exception.stacktrace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StackTraceRendererTest {
+
+    @Test
+    void elidesFramesSharedWithCause() {
+        ResponseStatusException ex = deep(200);
+
+        String rendered = StackTraceRenderer.render(ex, 64 * 1024);
+
+        assertThat(rendered).startsWith(ResponseStatusException.class.getName());
+        assertThat(rendered).contains("Caused by: java.lang.IllegalArgumentException: 잘못된 입력 값");
+        assertThat(rendered).containsPattern("\\.\\.\\. \\d+ more");
+        assertThat(rendered).contains("... repeated 199 more times");
+        assertThat(rendered.length()).isLessThan(fullTrace(ex).length());
+    }
+
+    @Test
+    void staysWithinByteBudget() {
+        IllegalStateException ex = new IllegalStateException("200 frames");
+        StackTraceElement[] frames = new StackTraceElement[200];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new StackTraceElement("hello.exception.Sample", "method" + i, "Sample.java", i);
+        }
+        ex.setStackTrace(frames);
+
+        String rendered = StackTraceRenderer.render(ex, 1024);
+
+        assertThat(rendered.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(1024);
+        assertThat(rendered).endsWith("... truncated");
+    }
+
+    @Test
+    void collapsesFrameworkFrames() {
+        IllegalStateException ex = new IllegalStateException("framework");
+        ex.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("hello.exception.api.ApiExceptionController", "getMember", "ApiExceptionController.java", 20),
+                new StackTraceElement("org.springframework.web.method.support.InvocableHandlerMethod", "doInvoke", null, 205),
+                new StackTraceElement("org.springframework.web.servlet.DispatcherServlet", "doDispatch", null, 1067),
+                new StackTraceElement("org.apache.catalina.core.ApplicationFilterChain", "doFilter", null, 162),
+        });
+
+        String rendered = StackTraceRenderer.render(ex);
+
+        assertThat(rendered).contains("at hello.exception.api.ApiExceptionController.getMember");
+        assertThat(rendered).contains("... 3 framework frames");
+        assertThat(rendered).doesNotContain("DispatcherServlet");
+    }
+
+    private ResponseStatusException deep(int depth) {
+        try {
+            recurse(depth);
+            throw new AssertionError();
+        } catch (IllegalArgumentException e) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "error.bad", e);
+        }
+    }
+
+    private void recurse(int depth) {
+        if (depth == 0) {
+            throw new IllegalArgumentException("잘못된 입력 값");
+        }
+        recurse(depth - 1);
+    }
+
+    private String fullTrace(Throwable ex) {
+        java.io.StringWriter writer = new java.io.StringWriter();
+        ex.printStackTrace(new java.io.PrintWriter(writer));
+        return writer.toString();
+    }
+}
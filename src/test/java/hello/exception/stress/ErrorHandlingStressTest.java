@@ -0,0 +1,414 @@
+package hello.exception.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.exception.exception.UserException;
+import hello.exception.exhandler.ErrorCodeRegistry;
+import hello.exception.exhandler.ErrorResult;
+import hello.exception.exhandler.advice.ExControllerAdvice;
+import hello.exception.filter.ErrorBudget;
+import hello.exception.filter.ErrorBudgetFilter;
+import hello.exception.interceptor.LogInterceptor;
+import hello.exception.interceptor.RequestSample;
+import hello.exception.interceptor.SlowRequestReservoir;
+import hello.exception.journal.ErrorJournal;
+import hello.exception.logging.ErrorLogGovernor;
+import hello.exception.logging.LogCategory;
+import hello.exception.memory.MemoryPressureMonitor;
+import hello.exception.resolver.MyHandlerExceptionResolver;
+import hello.exception.resolver.UserHandlerExceptionResolver;
+import hello.exception.warmup.WarmUpRequests;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/*
+오류 처리 컴포넌트 동시성 스트레스 테스트
+- 실행: ./gradlew stressTest (기본 test 에서는 제외된다. @Tag("stress"))
+- 컴포넌트마다 1, 2, 4 ... 128 스레드로 stress.step-millis(기본 500ms) 동안 계속 호출한다.
+- 호출마다 고유한 값(id)을 넣고, 응답에 그 값이 그대로 돌아오는지 확인한다. (다른 요청의 body 가 섞이면 실패)
+- 고정 크기 자료구조는 경합 중에도 지켜야 하는 불변식을 따로 확인한다.
+    - ErrorJournal: 버퍼를 계속 덮어쓰는(lapping) 동안 읽어도 필드가 섞인 기록이 보이지 않는다.
+    - SlowRequestReservoir: 기동 직후의 아주 느린 요청이 floor 를 영원히 올려 두지 않는다. (시간 창)
+    - ErrorBudget: 새 키가 쏟아져도 버킷 수가 max-buckets 를 넘지 않는다.
+- 스레드 수별 처리량을 표로 출력하고 build/stress/scaling.csv 에 남긴다.
+  스레드를 늘려도 처리량이 늘지 않는 구간이 경합 지점이다.
+
+설정 (시스템 프로퍼티)
+- stress.step-millis: 스레드 수 하나당 측정 시간 (기본 500)
+- stress.max-threads: 최대 스레드 수 (기본 128)
+ */
+@Tag("stress")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "error.warmup.enabled=false",
+        "trace.export.enabled=false",
+        "logging.level.hello.exception=WARN",
+        "error.log.governor.window-millis=100",
+        "error.budget.client.permits-per-second=1000000000",
+        "error.budget.client.burst=1000000000",
+        "error.budget.route.permits-per-second=1000000000",
+        "error.budget.route.burst=1000000000",
+        "error.journal.capacity=65536",
+        "memory.pressure.enabled=false"})
+class ErrorHandlingStressTest {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64, 128};
+    private static final long STEP_MILLIS = Long.getLong("stress.step-millis", 500);
+    private static final int MAX_THREADS = Integer.getInteger("stress.max-threads", 128);
+    private static final Path REPORT = Paths.get("build/stress/scaling.csv");
+    private static final List<String> rows = new ArrayList<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ErrorLogGovernor errorLogGovernor;
+
+    @Autowired
+    ErrorJournal errorJournal;
+
+    @Autowired
+    ExControllerAdvice exControllerAdvice;
+
+    @Autowired
+    ErrorCodeRegistry errorCodeRegistry;
+
+    @Autowired
+    ErrorBudget errorBudget;
+
+    @Autowired
+    WarmUpRequests warmUpRequests;
+
+    @Autowired
+    SlowRequestReservoir slowRequestReservoir;
+
+    @Autowired
+    MemoryPressureMonitor memoryPressureMonitor;
+
+    @Test
+    void userHandlerExceptionResolver() {
+        UserHandlerExceptionResolver resolver = new UserHandlerExceptionResolver(errorLogGovernor, errorJournal, errorCodeRegistry, memoryPressureMonitor);
+        stress("resolver.UserHandlerExceptionResolver", id -> {
+            String message = "u-" + id;
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/user-ex");
+            request.addHeader("Accept", "application/json");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            resolver.resolveException(request, response, null, new UserException(message));
+
+            JsonNode body = objectMapper.readTree(response.getContentAsString());
+            return response.getStatus() == 400 && message.equals(body.get("message").asText());
+        });
+    }
+
+    @Test
+    void myHandlerExceptionResolver() {
+        MyHandlerExceptionResolver resolver = new MyHandlerExceptionResolver(errorLogGovernor, errorJournal, errorCodeRegistry, memoryPressureMonitor);
+        stress("resolver.MyHandlerExceptionResolver", id -> {
+            String message = "m-" + id;
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            resolver.resolveException(new MockHttpServletRequest("GET", "/api/members/bad"), response, null,
+                    new IllegalArgumentException(message));
+
+            return response.getStatus() == 400 && message.equals(response.getErrorMessage());
+        });
+    }
+
+    @Test
+    void exControllerAdvice() {
+        stress("advice.ExControllerAdvice", id -> {
+            String message = "a-" + id;
+            ErrorResult result = (ErrorResult) exControllerAdvice.illegalExHandler(new IllegalArgumentException(message),
+                    new MockHttpServletRequest("GET", "/api/members/bad")).getBody();
+            return "BAD".equals(result.getCode()) && message.equals(result.getMessage());
+        });
+    }
+
+    // 스프링 MVC 전체 경로 (ValidationControllerAdvice, 메시지 컨버터)
+    // HTTP/1.1 로 고정한다. h2c 프로필로 띄워서 h2c 로 올라가면 연결 하나에 스트림 수 제한(톰캣 기본 100)이 걸려 128 스레드에서 요청이 거절된다.
+    @Test
+    void validationAdviceOverHttp() {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        stress("advice.ValidationControllerAdvice(http)", id -> {
+            String value = "x" + id;
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/default-handler-ex?data=" + value))
+                    .header("Accept", "application/json")
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            JsonNode body = objectMapper.readTree(response.body());
+            return response.statusCode() == 400 && value.equals(body.path("errors").path(0).path("rejectedValue").asText());
+        });
+    }
+
+    @Test
+    void errorBudgetFilter() {
+        ErrorBudgetFilter filter = new ErrorBudgetFilter(errorBudget, warmUpRequests, false, memoryPressureMonitor,
+                errorCodeRegistry, errorJournal, errorLogGovernor);
+        stress("filter.ErrorBudgetFilter", id -> {
+            String message = "f-" + id;
+            FilterChain chain = (request, response) -> ((HttpServletResponse) response).sendError(400, message);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/members/bad"), response, chain);
+
+            return response.getStatus() == 400 && message.equals(response.getErrorMessage());
+        });
+    }
+
+    @Test
+    void logInterceptor() {
+        LogInterceptor interceptor = new LogInterceptor(slowRequestReservoir);
+        stress("interceptor.LogInterceptor", id -> {
+            String key = "i-" + id;
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stress/" + key);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            interceptor.preHandle(request, response, "handler");
+            request.setAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE, new IllegalStateException(key));
+            response.setStatus(500);
+            interceptor.afterCompletion(request, response, "handler", null);
+            return true;
+        });
+
+        // 보관된 오류 샘플의 URI 와 예외 메시지는 같은 요청에서 나온 것이어야 한다.
+        List<RequestSample> errors = slowRequestReservoir.getRecentErrors();
+        assertThat(errors).isNotEmpty();
+        for (RequestSample sample : errors) {
+            if (sample.getUri().startsWith("/stress/")) {
+                String key = sample.getUri().substring("/stress/".length());
+                assertThat(sample.getException()).endsWith(": " + key);
+            }
+        }
+    }
+
+    @Test
+    void errorLogGovernor() {
+        LogCategory[] categories = LogCategory.values();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stress/governor");
+        IllegalStateException ex = new IllegalStateException("stress");
+        stress("logging.ErrorLogGovernor", id -> {
+            errorLogGovernor.verbose(categories[(int) (id % categories.length)], request, ex);
+            return true;
+        });
+    }
+
+    // 작은 링 버퍼를 모든 스레드가 덮어쓰는 동안 별도 스레드가 계속 읽는다. 모든 필드는 id 에서 나온다.
+    @Test
+    void errorJournalLapping() throws Exception {
+        ErrorJournal journal = new ErrorJournal(true, 64, 16);
+        String[] uris = {"/lap/a", "/lap/b", "/lap/c"};
+        Class<?>[] classes = {IllegalStateException.class, IllegalArgumentException.class, UserException.class};
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong visited = new AtomicLong();
+        AtomicReference<String> torn = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                journal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) -> {
+                    visited.incrementAndGet();
+                    if (status != 400 + (int) (requestId % 100)
+                            || codeId != (int) (requestId % 5)
+                            || !uris[(int) (requestId % uris.length)].equals(journal.uri(uriId))
+                            || !classes[(int) (requestId % classes.length)].getName().equals(journal.exceptionClassName(classId))) {
+                        torn.compareAndSet(null, "seq " + seq + ": requestId=" + requestId + " status=" + status + " codeId=" + codeId);
+                    }
+                });
+            }
+        }, "journal-reader");
+        reader.start();
+
+        try {
+            stress("journal.ErrorJournal(lapping)", id -> {
+                journal.append(id, uris[(int) (id % uris.length)], classes[(int) (id % classes.length)],
+                        (int) (id % 5), 400 + (int) (id % 100));
+                return true;
+            });
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+
+        assertThat(torn.get()).as("torn record").isNull();
+        assertThat(visited.get()).isPositive();
+        assertThat(journal.getDropped()).isLessThanOrEqualTo(journal.getWritten());
+        System.out.printf("journal lapping: written=%d dropped=%d visited=%d%n",
+                journal.getWritten(), journal.getDropped(), visited.get());
+    }
+
+    // 기동 직후 아주 느린 요청으로 가득 채운 뒤, 시간 창이 지나면 평범한 요청이 다시 잡히고 기동 때 항목은 사라져야 한다.
+    @Test
+    void slowRequestReservoirFloor() throws Exception {
+        int slowestSize = 32;
+        long windowMillis = 200;
+        SlowRequestReservoir reservoir = new SlowRequestReservoir(slowestSize, 16, windowMillis);
+        for (int i = 0; i < slowestSize; i++) {
+            reservoir.captureSlow(sample("/startup/" + i, TimeUnit.SECONDS.toNanos(100) + i));
+        }
+        Thread.sleep(windowMillis * 2);
+
+        stress("interceptor.SlowRequestReservoir(floor)", id -> {
+            reservoir.captureSlow(sample("/steady/" + id, 1_000 + (id & 0xFFFFF)));
+            return true;
+        });
+
+        List<RequestSample> slowest = reservoir.getSlowest();
+        assertThat(slowest).hasSize(slowestSize);
+        assertThat(slowest).allMatch(sample -> sample.getUri().startsWith("/steady/"));
+        assertThat(slowest).extracting(RequestSample::getDurationNanos).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(slowest.stream().map(RequestSample::getUri).distinct().count()).isEqualTo(slowestSize);
+    }
+
+    // 요청마다 새 클라이언트, 새 경로 키. 버킷 수는 어느 순간에도 max-buckets 를 넘지 않아야 한다.
+    @Test
+    void errorBudgetEvictionBound() {
+        int maxBuckets = 1000;
+        ErrorBudget budget = new ErrorBudget(1000, 10, 1000, 10, maxBuckets);
+        AtomicLong observedMax = new AtomicLong();
+        stress("filter.ErrorBudget(eviction)", id -> {
+            budget.tryConsume("c-" + id, "/r-" + id);
+            if ((id & 63) != 0) {
+                return true;
+            }
+            int size = budget.maxSize();
+            observedMax.accumulateAndGet(size, Math::max);
+            return size <= maxBuckets;
+        });
+
+        assertThat(observedMax.get()).isLessThanOrEqualTo(maxBuckets);
+        assertThat(budget.maxSize()).isLessThanOrEqualTo(maxBuckets);
+    }
+
+    private static RequestSample sample(String uri, long durationNanos) {
+        return new RequestSample(System.currentTimeMillis(), uri, "handler", "REQUEST", 200, durationNanos, null);
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        List<String> lines = new ArrayList<>();
+        lines.add("component,threads,ops,opsPerSecond,speedup");
+        lines.addAll(rows);
+        Files.write(REPORT, lines, StandardCharsets.UTF_8);
+        System.out.println("stress report written to " + REPORT.toAbsolutePath());
+    }
+
+    private void stress(String component, Operation operation) {
+        PrintStream out = System.out;
+        out.printf("%n%-45s %8s %12s %12s %8s%n", component, "threads", "ops", "ops/s", "speedup");
+
+        double single = 0;
+        for (int threads : THREADS) {
+            if (threads > MAX_THREADS) {
+                break;
+            }
+            Step step = run(threads, operation);
+            assertThat(step.failures.get())
+                    .as("%s with %d threads: %s", component, threads, step.firstFailure.get())
+                    .isZero();
+
+            double perSecond = step.ops * 1000.0 / STEP_MILLIS;
+            if (threads == 1) {
+                single = perSecond;
+            }
+            double speedup = single > 0 ? perSecond / single : 0;
+            out.printf("%-45s %8d %12d %12.0f %8.2f%n", "", threads, step.ops, perSecond, speedup);
+            synchronized (rows) {
+                rows.add(String.format("%s,%d,%d,%.0f,%.2f", component, threads, step.ops, perSecond, speedup));
+            }
+        }
+    }
+
+    private Step run(int threads, Operation operation) {
+        Step step = new Step();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t << 40;   // 스레드마다 겹치지 않는 id
+            futures.add(executor.submit(() -> {
+                start.await();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STEP_MILLIS);
+                long ops = 0;
+                while (System.nanoTime() - deadline < 0) {
+                    long id = base + ops;
+                    try {
+                        if (!operation.run(id)) {
+                            step.fail("wrong response for id " + id);
+                        }
+                    } catch (Exception e) {
+                        step.fail(e.toString());
+                    }
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<Long> future : futures) {
+                step.ops += future.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return step;
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        boolean run(long id) throws Exception;
+    }
+
+    static class Step {
+        final AtomicLong failures = new AtomicLong();
+        final AtomicReference<String> firstFailure = new AtomicReference<>();
+        long ops;
+
+        void fail(String message) {
+            failures.incrementAndGet();
+            firstFailure.compareAndSet(null, message);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package hello.exception.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTraceTest {
+
+    @Test
+    void nestedSpansKeepParents() {
+        RequestTrace trace = new RequestTrace("/api/members/ex");
+        trace.begin(Stage.REQUEST);
+        trace.begin(Stage.CONTROLLER);
+        trace.end(Stage.CONTROLLER);
+        trace.begin(Stage.RESOLVER);
+        trace.end(Stage.RESOLVER);
+        trace.end(Stage.REQUEST);
+        trace.begin(Stage.ERROR_DISPATCH);   // REQUEST 가 끝난 뒤의 ERROR 디스패치도 REQUEST 의 자식
+        trace.end(Stage.ERROR_DISPATCH);
+
+        assertThat(trace.size()).isEqualTo(4);
+        assertThat(trace.stage(0)).isEqualTo(Stage.REQUEST);
+        assertThat(trace.parent(0)).isEqualTo(-1);
+        assertThat(trace.stage(1)).isEqualTo(Stage.CONTROLLER);
+        assertThat(trace.parent(1)).isEqualTo(0);
+        assertThat(trace.stage(2)).isEqualTo(Stage.RESOLVER);
+        assertThat(trace.parent(2)).isEqualTo(0);
+        assertThat(trace.stage(3)).isEqualTo(Stage.ERROR_DISPATCH);
+        assertThat(trace.parent(3)).isEqualTo(0);
+        for (int span = 0; span < trace.size(); span++) {
+            assertThat(trace.endEpochNanos(span, 0)).isGreaterThanOrEqualTo(trace.startEpochNanos(span));
+        }
+    }
+
+    @Test
+    void endClosesTheLatestOpenSpanOfThatStage() {
+        RequestTrace trace = new RequestTrace("/");
+        trace.begin(Stage.REQUEST);
+        trace.begin(Stage.CONTROLLER);
+        trace.begin(Stage.CONTROLLER);
+        trace.end(Stage.CONTROLLER);
+
+        // 2번(나중에 연 CONTROLLER)이 끝났고, 1번은 아직 열려 있으므로 내보내는 시각(now)을 종료 시각으로 쓴다.
+        long now = System.nanoTime();
+        assertThat(trace.endEpochNanos(2, now + 1_000)).isEqualTo(trace.endEpochNanos(2, now));
+        assertThat(trace.endEpochNanos(1, now + 1_000) - trace.endEpochNanos(1, now)).isEqualTo(1_000);
+        assertThat(trace.parent(2)).isEqualTo(1);
+
+        trace.end(Stage.SEND_ERROR);   // 열린 구간이 없으면 아무것도 하지 않는다.
+        trace.begin(Stage.VIEW_RENDER);
+        assertThat(trace.parent(3)).isEqualTo(1);
+    }
+
+    @Test
+    void dropsSpansBeyondTheLimit() {
+        RequestTrace trace = new RequestTrace("/");
+        for (int i = 0; i < 40; i++) {
+            trace.begin(Stage.CONTROLLER);
+            trace.end(Stage.CONTROLLER);
+        }
+        assertThat(trace.size()).isEqualTo(8);
+    }
+
+    @Test
+    void errorStagesAndMarkErrorFlagTheTrace() {
+        RequestTrace ok = new RequestTrace("/");
+        ok.begin(Stage.REQUEST);
+        ok.begin(Stage.CONTROLLER);
+        ok.begin(Stage.VIEW_RENDER);
+        assertThat(ok.isError()).isFalse();
+
+        RequestTrace sendError = new RequestTrace("/");
+        sendError.begin(Stage.SEND_ERROR);
+        assertThat(sendError.isError()).isTrue();
+
+        RequestTrace marked = new RequestTrace("/");
+        marked.markError();
+        assertThat(marked.isError()).isTrue();
+    }
+
+    @Test
+    void idsAreHex() {
+        RequestTrace trace = new RequestTrace("/");
+        assertThat(trace.getTraceId()).hasSize(32).matches("[0-9a-f]+");
+        assertThat(trace.getTraceId()).endsWith(String.format("%016x", trace.getTraceIdLow()));
+        assertThat(trace.spanId(0)).isEqualTo(String.format("%016x", trace.getTraceIdLow() + 1));
+    }
+}
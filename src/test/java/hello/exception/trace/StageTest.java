@@ -0,0 +1,22 @@
+package hello.exception.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StageTest {
+
+    @Test
+    void ordinalRoundTripsThroughAByte() {
+        for (Stage stage : Stage.values()) {
+            assertThat(stage.ordinal()).isLessThan(256);
+            assertThat(Stage.of(stage.ordinal())).isSameAs(stage);
+        }
+    }
+
+    @Test
+    void onlyErrorHandlingStagesAreErrors() {
+        assertThat(Stage.values()).filteredOn(Stage::isError)
+                .containsExactly(Stage.RESOLVER, Stage.SEND_ERROR, Stage.ERROR_DISPATCH);
+    }
+}
@@ -0,0 +1,83 @@
+package hello.exception.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+
+import javax.servlet.ServletRequestEvent;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceExporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void exportsErrorsAndOnlySampledSuccesses() throws Exception {
+        Path path = directory.resolve("traces.jsonl");
+        TraceExporter exporter = new TraceExporter(true, path.toString(), 1024, 0.0, 1 << 20);
+
+        for (int i = 0; i < 100; i++) {
+            exporter.requestDestroyed(event(trace("/ok", false)));
+        }
+        exporter.requestDestroyed(event(trace("/error", true)));
+        exporter.destroy();
+
+        List<String> lines = Files.readAllLines(path);
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0)).contains("\"stringValue\":\"/error\"");
+    }
+
+    @Test
+    void samplingFollowsTheTraceId() {
+        TraceExporter half = new TraceExporter(false, directory.resolve("unused").toString(), 16, 0.5, 1 << 20);
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            RequestTrace trace = trace("/ok", false);
+            assertThat(half.sampled(trace)).isEqualTo(half.sampled(trace));
+            if (half.sampled(trace)) {
+                sampled++;
+            }
+        }
+        assertThat(sampled).isBetween(4_500, 5_500);
+    }
+
+    @Test
+    void rotatesWhenTheFileExceedsMaxBytes() throws Exception {
+        Path path = directory.resolve("traces.jsonl");
+        long maxBytes = 4096;
+        TraceExporter exporter = new TraceExporter(true, path.toString(), 1024, 1.0, maxBytes);
+
+        for (int i = 0; i < 200; i++) {
+            exporter.requestDestroyed(event(trace("/error-" + i, true)));
+        }
+        exporter.destroy();
+
+        Path rotated = directory.resolve("traces.jsonl.1");
+        assertThat(Files.size(path)).isLessThanOrEqualTo(maxBytes);
+        assertThat(Files.size(rotated)).isLessThanOrEqualTo(maxBytes);
+        assertThat(Files.readAllLines(path)).last().asString().contains("/error-199");
+    }
+
+    private static RequestTrace trace(String uri, boolean error) {
+        RequestTrace trace = new RequestTrace(uri);
+        trace.begin(Stage.REQUEST);
+        if (error) {
+            trace.begin(Stage.SEND_ERROR);
+            trace.end(Stage.SEND_ERROR);
+        }
+        trace.end(Stage.REQUEST);
+        return trace;
+    }
+
+    private static ServletRequestEvent event(RequestTrace trace) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", trace.getUri());
+        request.setAttribute(RequestTrace.ATTRIBUTE, trace);
+        return new ServletRequestEvent(new MockServletContext(), request);
+    }
+}
@@ -0,0 +1,36 @@
+package hello.exception.trace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceHandlerExceptionResolverTest {
+
+    private final TraceHandlerExceptionResolver resolver = new TraceHandlerExceptionResolver();
+
+    @Test
+    void endsControllerAndStartsResolver() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/ex");
+        RequestTrace trace = new RequestTrace(request.getRequestURI());
+        request.setAttribute(RequestTrace.ATTRIBUTE, trace);
+        trace.begin(Stage.REQUEST);
+        trace.begin(Stage.CONTROLLER);
+
+        assertThat(resolver.resolveException(request, new MockHttpServletResponse(), null, new RuntimeException())).isNull();
+
+        assertThat(trace.size()).isEqualTo(3);
+        assertThat(trace.stage(2)).isEqualTo(Stage.RESOLVER);
+        assertThat(trace.parent(2)).isEqualTo(0);   // CONTROLLER 가 끝났으므로 REQUEST 의 자식
+        assertThat(trace.isError()).isTrue();
+    }
+
+    @Test
+    void requestWithoutTraceIsLeftAlone() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/ex");
+
+        assertThat(resolver.resolveException(request, new MockHttpServletResponse(), null, new RuntimeException())).isNull();
+        assertThat(RequestTrace.of(request)).isNull();
+    }
+}
@@ -0,0 +1,119 @@
+package hello.exception.warmup;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+워밍업 후 첫 요청 지연이 평소(steady state)의 2배 안에 드는지 확인한다.
+- 실행: ./gradlew stressTest (기본 test 에서는 제외된다. @Tag("stress"))
+  기본 test 는 캐시된 컨텍스트 여러 개가 한 JVM 에서 함께 돌아서, 요청 한 번짜리 측정이 경로와 상관없이 2~4배 흔들린다.
+- readiness 가 ACCEPTING_TRAFFIC 이 된 뒤, 워밍업한 경로마다 첫 요청 한 번을 먼저 모두 잰다.
+  그 전에 정상 경로(/api/members/spring)를 한 번 요청해서 준비를 확인한다. (ColdStartBenchmark 와 같다.)
+  HttpClient 자체의 첫 사용 비용(셀렉터 스레드, 클래스 로딩)이 첫 오류 경로에 들어가지 않게 한다.
+  그다음 경로마다 STEADY_REQUESTS 번을 더 보내서 중앙값을 평소 지연으로 본다.
+- first <= 2 * median + slack
+  slack 은 요청 한 번짜리 측정의 흔들림을 흡수한다. 오류 응답은 연결을 끊으므로 요청마다 새로 연결하고,
+  CPU 가 하나인 환경에서는 steady state 요청도 가끔 median 의 3~5배(20~30ms)까지 튄다.
+  워밍업하지 않은 첫 요청은 수십~수백 ms 이므로 이 여유로 가려지지 않는다. (error.warmup.enabled=false 로 확인)
+- 다른 테스트가 이미 태운 컨텍스트를 재사용하면 의미가 없으므로 iterations 를 바꿔서 컨텍스트를 따로 띄운다.
+- 오류 예산과 로그 억제가 중간에 켜지면 steady state 쪽만 빨라지므로 둘 다 걸리지 않게 한도를 올린다.
+- 경로별 첫 요청과 중앙값을 표로 출력한다.
+
+설정 (시스템 프로퍼티)
+- stress.warmup.slack-millis: 첫 요청에 더 허용하는 시간 (기본 20)
+ */
+@Tag("stress")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "error.warmup.iterations=" + ErrorPathWarmUpLatencyTest.ITERATIONS,
+                "error.budget.client.permits-per-second=100000", "error.budget.client.burst=100000",
+                "error.budget.route.permits-per-second=100000", "error.budget.route.burst=100000",
+                "error.log.governor.quiet-above=100000"
+        })
+class ErrorPathWarmUpLatencyTest {
+
+    static final int ITERATIONS = 3;
+    static final int STEADY_REQUESTS = 9;
+    static final long SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("stress.warmup.slack-millis", 20));
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ErrorPathWarmUp errorPathWarmUp;
+
+    @Autowired
+    ApplicationAvailability availability;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    @Test
+    void firstRequestAfterReadinessIsWithinTwiceSteadyState() throws Exception {
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        List<ErrorPathWarmUp.WarmUpPath> paths = errorPathWarmUp.paths();
+        assertThat(paths).isNotEmpty();
+        assertThat(client.send(request("/api/members/spring", "application/json"), HttpResponse.BodyHandlers.discarding())
+                .statusCode()).isEqualTo(200);
+
+        long[] first = new long[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            first[i] = send(paths.get(i));
+        }
+
+        System.out.printf("%n%-45s %-18s %10s %10s%n", "warm-up latency", "accept", "first(us)", "median(us)");
+        List<String> slow = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            long[] steady = new long[STEADY_REQUESTS];
+            for (int j = 0; j < STEADY_REQUESTS; j++) {
+                steady[j] = send(paths.get(i));
+            }
+            Arrays.sort(steady);
+            long median = steady[STEADY_REQUESTS / 2];
+            System.out.printf("%-45s %-18s %10d %10d%n", paths.get(i).getPath(), paths.get(i).getAccept(),
+                    first[i] / 1000, median / 1000);
+            if (first[i] > 2 * median + SLACK_NANOS) {
+                slow.add(String.format("%s [%s] first=%dus median=%dus", paths.get(i).getPath(),
+                        paths.get(i).getAccept(), first[i] / 1000, median / 1000));
+            }
+        }
+
+        assertThat(slow).isEmpty();
+    }
+
+    // 워밍업 토큰 없이 외부 요청처럼 보낸다. (ReadinessGateFilter 를 그대로 지난다.)
+    private long send(ErrorPathWarmUp.WarmUpPath path) throws Exception {
+        HttpRequest request = request(path.getPath(), path.getAccept());
+        long start = System.nanoTime();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        long elapsed = System.nanoTime() - start;
+        assertThat(status).as(path.getPath()).isBetween(400, 599);
+        return elapsed;
+    }
+
+    private HttpRequest request(String path, String accept) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+    }
+}
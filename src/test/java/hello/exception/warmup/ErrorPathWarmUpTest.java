@@ -0,0 +1,68 @@
+package hello.exception.warmup;
+
+import hello.exception.exception.UserException;
+import hello.exception.exhandler.ExceptionHandlerRegistry;
+import hello.exception.journal.ErrorJournal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+워밍업이 실제로 오류 경로를 태웠는지 확인한다. (시간은 비교하지 않는다.)
+- iterations 를 바꿔서 다른 테스트와 컨텍스트(ErrorJournal)를 공유하지 않게 한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "error.warmup.iterations=" + ErrorPathWarmUpTest.ITERATIONS)
+class ErrorPathWarmUpTest {
+
+    static final int ITERATIONS = 2;
+
+    @Autowired
+    ErrorPathWarmUp errorPathWarmUp;
+
+    @Autowired
+    ExceptionHandlerRegistry exceptionHandlerRegistry;
+
+    @Autowired
+    ErrorJournal errorJournal;
+
+    @Test
+    void warmsUpTheActiveErrorPage() {
+        // WebServerCustomizer 가 꺼져 있으므로 /error (BasicErrorController) 하나만 등록되어 있다.
+        assertThat(exceptionHandlerRegistry.getErrorPages())
+                .singleElement()
+                .satisfies(errorPage -> assertThat(errorPage.getPath()).isEqualTo("/error"));
+
+        assertThat(status("/error-404", "text/html")).isEqualTo(404);
+        assertThat(status("/error-500", "application/json")).isEqualTo(500);
+        assertThat(status("/error-ex", "text/html")).isEqualTo(500);
+        assertThat(status("/warm-up/response-status", "application/json")).isEqualTo(400);
+        assertThat(status("/api/members/user-ex", "application/json")).isEqualTo(400);
+    }
+
+    @Test
+    void handlersWereInvokedDuringWarmUp() {
+        Map<String, Integer> recorded = new HashMap<>();
+        errorJournal.scan((seq, timestampMillis, requestId, uriId, codeId, classId, status) ->
+                recorded.merge(errorJournal.uri(uriId) + " " + errorJournal.exceptionClassName(classId), 1, Integer::sum));
+
+        // ExControllerAdvice, UserHandlerExceptionResolver, MyHandlerExceptionResolver 가 iterations 번씩 기록했다.
+        assertThat(recorded.get("/api/members/{id} " + UserException.class.getName())).isEqualTo(ITERATIONS);
+        assertThat(recorded.get("/warm-up/user-ex " + UserException.class.getName())).isEqualTo(2 * ITERATIONS);
+        assertThat(recorded.get("/warm-up/illegal-argument " + IllegalArgumentException.class.getName()))
+                .isEqualTo(2 * ITERATIONS);
+    }
+
+    private int status(String path, String accept) {
+        return errorPathWarmUp.getReport().stream()
+                .filter(timing -> timing.getPath().equals(path) && timing.getAccept().equals(accept))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("not warmed up: " + path + " " + accept))
+                .getStatus();
+    }
+}
@@ -0,0 +1,47 @@
+package hello.exception.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadinessGateFilterTest {
+
+    final ApplicationAvailabilityBean availability = new ApplicationAvailabilityBean();
+    final WarmUpRequests warmUpRequests = new WarmUpRequests();
+    final ReadinessGateFilter filter = new ReadinessGateFilter(availability, warmUpRequests);
+
+    @Test
+    void refusesUntilReadyExceptWarmUpRequests() throws Exception {
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        MockFilterChain refusedChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/members/ex"), refused, refusedChain);
+
+        assertThat(refused.getStatus()).isEqualTo(503);
+        assertThat(refused.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(refusedChain.getRequest()).isNull();
+
+        MockHttpServletRequest warmUp = new MockHttpServletRequest("GET", "/api/members/ex");
+        warmUp.addHeader(WarmUpRequests.HEADER, warmUpRequests.getToken());
+        MockFilterChain warmUpChain = new MockFilterChain();
+        filter.doFilter(warmUp, new MockHttpServletResponse(), warmUpChain);
+
+        assertThat(warmUpChain.getRequest()).isSameAs(warmUp);
+    }
+
+    @Test
+    void passesOnceAcceptingTraffic() throws Exception {
+        availability.onApplicationEvent(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/members/ex");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+}